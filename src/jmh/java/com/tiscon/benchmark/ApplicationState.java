@@ -0,0 +1,52 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.InternApplication;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * ベンチマーク用にアプリケーションを起動する状態クラス。
+ * DBはインメモリのH2を使い、data.sqlで既存のCSVから参照データを登録する。
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Webサーバーを起動せずにアプリケーションを起動する。
+     */
+    @Setup
+    public void start() {
+        context = new SpringApplicationBuilder(InternApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.main.banner-mode=off",
+                        "--estimate.order.write-behind.enabled=false",
+                        "--logging.level.root=warn");
+    }
+
+    /**
+     * アプリケーションを停止する。
+     */
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Beanを取得する。
+     *
+     * @param type Beanの型
+     * @param <T>  Beanの型
+     * @return Bean
+     */
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
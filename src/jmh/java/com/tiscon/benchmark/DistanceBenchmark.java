@@ -0,0 +1,46 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.service.Distance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 緯度経度からの距離計算({@link Distance#getDistance})のベンチマーク。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+    /** 2地点の緯度経度(近距離・中距離・長距離) */
+    @Param({"35.1730990,136.883466,35.1855732,136.899092",
+            "35.681236,139.767125,34.702485,135.495951",
+            "43.068661,141.350755,26.212401,127.680932"})
+    public String points;
+
+    private double lat1;
+
+    private double lng1;
+
+    private double lat2;
+
+    private double lng2;
+
+    @Setup
+    public void setUp() {
+        String[] values = points.split(",");
+        lat1 = Double.parseDouble(values[0]);
+        lng1 = Double.parseDouble(values[1]);
+        lat2 = Double.parseDouble(values[2]);
+        lng2 = Double.parseDouble(values[3]);
+    }
+
+    @Benchmark
+    public Object getDistance() {
+        return Distance.getDistance(lat1, lng1, lat2, lng2);
+    }
+}
@@ -0,0 +1,54 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.service.EstimateService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 概算見積もり({@link EstimateService#getPrice(UserOrderDto)})のベンチマーク。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EstimateServiceBenchmark {
+
+    /** 引越し元と引越し先の都道府県ID(同一都道府県・近距離・長距離) */
+    @Param({"13-13", "13-27", "01-47"})
+    public String route;
+
+    /** 段ボール・ベッド・自転車・洗濯機の個数(単身・家族・事務所) */
+    @Param({"10-1-1-1", "40-2-3-1", "600-0-0-2"})
+    public String packages;
+
+    private EstimateService estimateService;
+
+    private UserOrderDto dto;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        estimateService = application.getBean(EstimateService.class);
+
+        String[] prefectures = route.split("-");
+        String[] counts = packages.split("-");
+        dto = new UserOrderDto();
+        dto.setOldPrefectureId(prefectures[0]);
+        dto.setNewPrefectureId(prefectures[1]);
+        dto.setBox(counts[0]);
+        dto.setBed(counts[1]);
+        dto.setBicycle(counts[2]);
+        dto.setWashingMachine(counts[3]);
+        dto.setWashingMachineInstallation(true);
+        dto.setMovingDate(LocalDate.of(2021, 3, 20));
+    }
+
+    @Benchmark
+    public Object getPrice() {
+        return estimateService.getPrice(dto);
+    }
+}
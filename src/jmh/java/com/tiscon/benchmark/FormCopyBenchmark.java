@@ -0,0 +1,59 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.form.UserOrderForm;
+import com.tiscon.mapper.UserOrderMapper;
+import com.tiscon.mapper.UserOrderMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * コントローラーで行う入力フォームからDTOへのコピーのベンチマーク。
+ * リフレクションによるコピーと、コンパイル時に生成したマッパーを比較する。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormCopyBenchmark {
+
+    private final UserOrderMapper mapper = new UserOrderMapperImpl();
+
+    private UserOrderForm form;
+
+    @Setup
+    public void setUp() {
+        form = new UserOrderForm();
+        form.setCustomerName("山田太郎");
+        form.setTel("0312345678");
+        form.setEmail("test@test.com");
+        form.setOldPrefectureId("13");
+        form.setOldAddress("新宿区西新宿1-1-1");
+        form.setNewPrefectureId("27");
+        form.setNewAddress("大阪市北区梅田1-1-1");
+        form.setBox("10");
+        form.setBed("1");
+        form.setBicycle("1");
+        form.setWashingMachine("1");
+        form.setWashingMachineInstallation(true);
+        form.setMovingDate("2021-03-20");
+    }
+
+    @Benchmark
+    public UserOrderDto copyProperties() {
+        UserOrderDto dto = new UserOrderDto();
+        BeanUtils.copyProperties(form, dto);
+        dto.setMovingDate(LocalDate.parse(form.getMovingDate()));
+        return dto;
+    }
+
+    @Benchmark
+    public UserOrderDto generatedMapper() {
+        return mapper.toDto(form);
+    }
+}
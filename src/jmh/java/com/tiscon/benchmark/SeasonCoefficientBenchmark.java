@@ -0,0 +1,35 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.service.PricingSnapshot;
+import com.tiscon.service.PricingSnapshotHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 季節係数({@link PricingSnapshot#getSeasonCoefficientPerMille(String)})のベンチマーク。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeasonCoefficientBenchmark {
+
+    /** 引っ越し日(通常期・繁忙期・9月の祝日) */
+    @Param({"2021-01-15", "2021-03-19", "2021-09-20"})
+    public String movingDate;
+
+    private PricingSnapshot snapshot;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        snapshot = application.getBean(PricingSnapshotHolder.class).get();
+    }
+
+    @Benchmark
+    public int getSeasonCoefficientPerMille() {
+        return snapshot.getSeasonCoefficientPerMille(movingDate);
+    }
+}
@@ -0,0 +1,52 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.InternApplication;
+import com.tiscon.dto.PriceBreakdown;
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.service.EstimateService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * アプリケーションの起動から最初の見積もりを返却するまでの時間のベンチマーク。
+ * 起動直後のJVMで1回だけ計測するため、フォークごとに新しいJVMで起動する。
+ * クラスデータ共有のアーカイブを使う場合は、-jvmArgsAppend -XX:SharedArchiveFile=target/appcds/app.jsa を指定する。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    /** 有効にするプロファイル(通常・起動を速くする設定) */
+    @Param({"default", "fast-start"})
+    public String profile;
+
+    @Benchmark
+    public PriceBreakdown firstQuote() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InternApplication.class)
+                .profiles(profile)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.main.banner-mode=off",
+                        "--estimate.order.write-behind.enabled=false",
+                        "--logging.level.root=warn")) {
+            UserOrderDto dto = new UserOrderDto();
+            dto.setOldPrefectureId("13");
+            dto.setNewPrefectureId("27");
+            dto.setBox("10");
+            dto.setBed("1");
+            dto.setBicycle("1");
+            dto.setWashingMachine("1");
+            dto.setWashingMachineInstallation(true);
+            dto.setMovingDate(LocalDate.of(2021, 3, 20));
+            return context.getBean(EstimateService.class).getPrice(dto);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tiscon.benchmark;
+
+import com.tiscon.service.PricingSnapshot;
+import com.tiscon.service.PricingSnapshotHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 段ボール数に応じたトラック料金({@link PricingSnapshot#getPricePerTruck(int)})のベンチマーク。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TruckAllocationBenchmark {
+
+    /** 総段ボール数(事前計算の範囲内・範囲外) */
+    @Param({"45", "250", "1000", "100000"})
+    public int boxNum;
+
+    private PricingSnapshot snapshot;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        snapshot = application.getBean(PricingSnapshotHolder.class).get();
+    }
+
+    @Benchmark
+    public long getPricePerTruck() {
+        return snapshot.getPricePerTruck(boxNum);
+    }
+}
@@ -0,0 +1,25 @@
+package com.tiscon.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 処理時間などのメトリクスを収集するための設定クラス。
+ * 収集したメトリクスはPrometheus形式で/actuator/prometheusから取得できる。
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    /**
+     * {@link io.micrometer.core.annotation.Timed}を付けたメソッドの処理時間を計測するアスペクトを生成する。
+     *
+     * @param meterRegistry メトリクスの登録先
+     * @return アスペクト
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
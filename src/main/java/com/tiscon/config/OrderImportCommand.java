@@ -0,0 +1,71 @@
+package com.tiscon.config;
+
+import com.tiscon.dto.OrderImportResult;
+import com.tiscon.service.OrderImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 起動時に申し込みのファイルを一括で取り込み、取り込みが終わったら終了するコマンド。
+ * 取り込むファイルを指定した場合だけ有効になる。ファイルの形式は拡張子で判定する(.ndjson・.jsonlはNDJSON、それ以外はCSV)。
+ * <pre>
+ * java -jar tiscon6.jar --spring.main.web-application-type=none --estimate.order-import.file=orders.csv
+ * </pre>
+ * すべての申し込みを登録できた場合は0、登録しなかった申し込みがある場合は1、取り込みを中断した場合は2で終了する。
+ */
+@Component
+@ConditionalOnProperty("estimate.order-import.file")
+public class OrderImportCommand implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderImportCommand.class);
+
+    private final OrderImportService orderImportService;
+
+    private final ConfigurableApplicationContext context;
+
+    /** 取り込むファイル */
+    private final Path file;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param orderImportService OrderImportServiceクラス
+     * @param context            アプリケーションコンテキスト
+     * @param file               取り込むファイル
+     */
+    public OrderImportCommand(OrderImportService orderImportService, ConfigurableApplicationContext context,
+                              @Value("${estimate.order-import.file}") String file) {
+        this.orderImportService = orderImportService;
+        this.context = context;
+        this.file = Paths.get(file);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode;
+        try (InputStream in = Files.newInputStream(file)) {
+            OrderImportResult result = orderImportService.importOrders(in,
+                    OrderImportService.Format.of(file.getFileName().toString()));
+            LOGGER.info("申し込みのファイルを取り込みました。file={}, 除外した申し込み={}", file, result.getRejectedFile());
+            exitCode = result.getRejectedCount() == 0 ? 0 : 1;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("申し込みのファイルを取り込めませんでした。file={}", file, e);
+            exitCode = 2;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tiscon.config;
+
+import com.tiscon.service.PricingSnapshotHolder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 起動にかかった時間を計測するクラス。
+ * <p>
+ * JVMの起動から要求を受け付けられるまでの時間と、最初の見積もりを返却するまでの時間をログに出力し、
+ * メトリクス(estimate.startup.ready、estimate.startup.first-quote)としても公開する。
+ * 参照データの読み込みを遅らせる設定の場合は、要求を受け付けられるようになった後にバックグラウンドで読み込む。
+ */
+@Component
+@Lazy(false)
+public class StartupTimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimer.class);
+
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    /** 起動が完了したら終了するかどうか(クラスデータ共有のアーカイブを作成する際のクラスの記録用) */
+    private final boolean exitAfterReady;
+
+    /** JVMの起動から要求を受け付けられるまでの時間[ミリ秒]。起動中は0 */
+    private volatile long readyMillis;
+
+    /** JVMの起動から最初の見積もりを返却するまでの時間[ミリ秒]。見積もり前は0 */
+    private volatile long firstQuoteMillis;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param pricingSnapshotHolder PricingSnapshotHolderクラス
+     * @param meterRegistry         メトリクスの登録先
+     * @param exitAfterReady        起動が完了したら終了するかどうか
+     */
+    public StartupTimer(PricingSnapshotHolder pricingSnapshotHolder, MeterRegistry meterRegistry,
+                        @Value("${estimate.startup.exit-after-ready:false}") boolean exitAfterReady) {
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.exitAfterReady = exitAfterReady;
+        TimeGauge.builder("estimate.startup.ready", this, TimeUnit.MILLISECONDS, timer -> timer.readyMillis)
+                .description("JVMの起動から要求を受け付けられるまでの時間")
+                .register(meterRegistry);
+        TimeGauge.builder("estimate.startup.first-quote", this, TimeUnit.MILLISECONDS, timer -> timer.firstQuoteMillis)
+                .description("JVMの起動から最初の見積もりを返却するまでの時間")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 起動の完了を記録し、参照データの読み込みを遅らせている場合はバックグラウンドで読み込む。
+     *
+     * @param event 起動の完了イベント
+     */
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = uptimeMillis();
+        LOGGER.info("要求を受け付けられるようになりました。JVMの起動から{}ms", readyMillis);
+        if (exitAfterReady) {
+            // 見積もりに使うクラスも記録されるよう、参照データを読み込んでから終了する。
+            pricingSnapshotHolder.get();
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+        if (!pricingSnapshotHolder.isLoaded()) {
+            Thread warmUp = new Thread(pricingSnapshotHolder::get, "reference-data-warm-up");
+            warmUp.setDaemon(true);
+            warmUp.start();
+        }
+    }
+
+    /**
+     * 見積もりを返却したことを記録する。最初の1回だけログに出力する。
+     */
+    public void onQuote() {
+        if (firstQuoteMillis == 0) {
+            recordFirstQuote();
+        }
+    }
+
+    private synchronized void recordFirstQuote() {
+        if (firstQuoteMillis == 0) {
+            firstQuoteMillis = uptimeMillis();
+            LOGGER.info("最初の見積もりを返却しました。JVMの起動から{}ms", firstQuoteMillis);
+        }
+    }
+
+    private static long uptimeMillis() {
+        return Math.max(1, ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
@@ -0,0 +1,123 @@
+package com.tiscon.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tiscon.dto.BatchEstimateError;
+import com.tiscon.dto.PriceBreakdown;
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.form.EstimateRequest;
+import com.tiscon.mapper.UserOrderMapper;
+import com.tiscon.service.BatchEstimateService;
+import com.tiscon.service.EstimateService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 引越し見積もりをJSONで提供するコントローラークラス。
+ * 画面遷移を伴わず、セッションも使わないため、1回のリクエストで概算見積もりを取得できる。
+ */
+@RestController
+@RequestMapping("api/estimates")
+public class EstimateApiController {
+
+    private final EstimateService estimateService;
+
+    private final BatchEstimateService batchEstimateService;
+
+    private final UserOrderMapper userOrderMapper;
+
+    private final Validator validator;
+
+    /** 概算見積もり結果を書き出すための設定済みのWriter。スレッドセーフなため共有する */
+    private final ObjectWriter responseWriter;
+
+    /**
+     * コンストラクタ
+     *
+     * @param estimateService      EstimateServiceクラス
+     * @param batchEstimateService BatchEstimateServiceクラス
+     * @param userOrderMapper      UserOrderMapperクラス
+     * @param validator            見積もり依頼を精査するValidator
+     * @param objectMapper         アプリケーションで共通のObjectMapper
+     */
+    public EstimateApiController(EstimateService estimateService, BatchEstimateService batchEstimateService,
+                                 UserOrderMapper userOrderMapper, Validator validator, ObjectMapper objectMapper) {
+        this.estimateService = estimateService;
+        this.batchEstimateService = batchEstimateService;
+        this.userOrderMapper = userOrderMapper;
+        this.validator = validator;
+        this.responseWriter = objectMapper.writerFor(PriceBreakdown.class);
+    }
+
+    /**
+     * 見積もり依頼に応じた概算見積もりを行う。
+     *
+     * @param request 見積もり依頼
+     * @return 概算見積もり結果(合計・距離・荷物・オプションサービスの料金)のJSON
+     * @throws JsonProcessingException 概算見積もり結果をJSONに変換できなかった場合
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<byte[]> estimate(@Validated @RequestBody EstimateRequest request) throws JsonProcessingException {
+        PriceBreakdown price = estimateService.getPrice(userOrderMapper.toDto(request));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseWriter.writeValueAsBytes(price));
+    }
+
+    /**
+     * 複数の見積もり依頼をまとめて概算見積もりする。
+     * 1件の見積もり依頼と同じ精査を依頼ごとに行い、不正な依頼が含まれる場合は見積もらずに400を返却する。
+     *
+     * @param requests 見積もり依頼
+     * @return 依頼と同じ順番の概算見積もり結果と処理時間。不正な依頼が含まれる場合は依頼ごとのエラーの内容
+     */
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<Object> batch(@RequestBody List<EstimateRequest> requests) {
+        List<UserOrderDto> orders = new ArrayList<>(requests.size());
+        List<BatchEstimateError> errors = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            EstimateRequest request = requests.get(i);
+            if (request == null) {
+                errors.add(new BatchEstimateError(i, "見積もり依頼がありません。"));
+                continue;
+            }
+            int index = i;
+            validator.validate(request).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .forEach(message -> errors.add(new BatchEstimateError(index, message)));
+            orders.add(userOrderMapper.toDto(request));
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "見積もり依頼の内容が不正です。", "errors", errors));
+        }
+        return ResponseEntity.ok(batchEstimateService.getPrices(orders));
+    }
+
+    /**
+     * 登録されていない都道府県や扱える範囲を超える荷物量などを指定された場合は、見積もりできない依頼として400を返却する。
+     *
+     * @param e 発生した例外
+     * @return エラーの内容
+     */
+    @ExceptionHandler({IllegalArgumentException.class, ArithmeticException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Map<String, String> handleIllegalArgument(RuntimeException e) {
+        return Map.of("message", e.getMessage());
+    }
+}
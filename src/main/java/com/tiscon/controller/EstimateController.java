@@ -1,15 +1,21 @@
 package com.tiscon.controller;
 
-import com.tiscon.dao.EstimateDao;
+import com.tiscon.dto.PriceBreakdown;
 import com.tiscon.dto.UserOrderDto;
 import com.tiscon.form.UserOrderForm;
+import com.tiscon.mapper.UserOrderMapper;
 import com.tiscon.service.EstimateService;
-import org.springframework.beans.BeanUtils;
+import com.tiscon.service.OrderWriteBehindService;
+import com.tiscon.service.PrefectureCatalog;
+import com.tiscon.service.PricingSnapshotHolder;
+import com.tiscon.validator.UserOrderFormValidator;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PostMapping;
 
 /**
@@ -20,19 +26,43 @@ import org.springframework.web.bind.annotation.PostMapping;
 @Controller
 public class EstimateController {
 
-    private final EstimateDao estimateDAO;
-
     private final EstimateService estimateService;
 
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    private final OrderWriteBehindService orderWriteBehindService;
+
+    private final UserOrderMapper userOrderMapper;
+
+    private final UserOrderFormValidator userOrderFormValidator;
+
     /**
      * コンストラクタ
      *
-     * @param estimateDAO EstimateDaoクラス
-     * @param estimateService EstimateServiceクラス
+     * @param estimateService         EstimateServiceクラス
+     * @param pricingSnapshotHolder   PricingSnapshotHolderクラス
+     * @param orderWriteBehindService OrderWriteBehindServiceクラス
+     * @param userOrderMapper         UserOrderMapperクラス
+     * @param userOrderFormValidator  UserOrderFormValidatorクラス
      */
-    public EstimateController(EstimateDao estimateDAO, EstimateService estimateService) {
-        this.estimateDAO = estimateDAO;
+    public EstimateController(EstimateService estimateService, PricingSnapshotHolder pricingSnapshotHolder,
+                              OrderWriteBehindService orderWriteBehindService, UserOrderMapper userOrderMapper,
+                              UserOrderFormValidator userOrderFormValidator) {
         this.estimateService = estimateService;
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.orderWriteBehindService = orderWriteBehindService;
+        this.userOrderMapper = userOrderMapper;
+        this.userOrderFormValidator = userOrderFormValidator;
+    }
+
+    /**
+     * 見積もり依頼情報の精査に、Bean Validationの代わりに{@link UserOrderFormValidator}を使う。
+     *
+     * @param binder 見積もり依頼情報のバインダー
+     */
+    @InitBinder("userOrderForm")
+    void initBinder(WebDataBinder binder) {
+        binder.setValidator(userOrderFormValidator);
     }
 
     @GetMapping("")
@@ -52,7 +82,7 @@ public class EstimateController {
             model.addAttribute("userOrderForm", new UserOrderForm());
         }
 
-        model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+        addPrefectures(model, (UserOrderForm) model.getAttribute("userOrderForm"));
         return "input";
     }
 
@@ -80,7 +110,7 @@ public class EstimateController {
         String strNew = userOrderForm.getNewPrefectureId();
         userOrderForm.setOldPrefectureId(strOld.format("%2s", strOld).replace(" ", "0"));
         userOrderForm.setNewPrefectureId(strNew.format("%2s", strNew).replace(" ", "0"));
-        model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+        addPrefectures(model, userOrderForm);
         model.addAttribute("userOrderForm", userOrderForm);
         return "confirm";
     }
@@ -94,7 +124,7 @@ public class EstimateController {
      */
     @PostMapping(value = "result", params = "backToInput")
     String backToInput(UserOrderForm userOrderForm, Model model) {
-        model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+        addPrefectures(model, userOrderForm);
         model.addAttribute("userOrderForm", userOrderForm);
         return "input";
     }
@@ -108,7 +138,7 @@ public class EstimateController {
      */
     @PostMapping(value = "order", params = "backToConfirm")
     String backToConfirm(UserOrderForm userOrderForm, Model model) {
-        model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+        addPrefectures(model, userOrderForm);
         model.addAttribute("userOrderForm", userOrderForm);
         return "confirm";
     }
@@ -125,21 +155,17 @@ public class EstimateController {
     String calculation(@Validated UserOrderForm userOrderForm, BindingResult result, Model model) {
         if (result.hasErrors()) {
 
-            model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+            addPrefectures(model, userOrderForm);
             model.addAttribute("userOrderForm", userOrderForm);
             return "confirm";
         }
         // 料金の計算を行う。
-        UserOrderDto dto = new UserOrderDto();
-        BeanUtils.copyProperties(userOrderForm, dto);
-        Integer price[] = estimateService.getPrice(dto);
+        UserOrderDto dto = userOrderMapper.toDto(userOrderForm);
+        PriceBreakdown price = estimateService.getPrice(dto);
 
-        model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+        addPrefectures(model, userOrderForm);
         model.addAttribute("userOrderForm", userOrderForm);
-        model.addAttribute("price", price[0]);
-        model.addAttribute("distancePrice",price[1]);
-        model.addAttribute("cargoPrice",price[2]);
-        model.addAttribute("optionPrice",price[3]);
+        model.addAttribute("price", price);
         return "result";
     }
 
@@ -155,16 +181,30 @@ public class EstimateController {
     String complete(@Validated UserOrderForm userOrderForm, BindingResult result, Model model) {
         if (result.hasErrors()) {
 
-            model.addAttribute("prefectures", estimateDAO.getAllPrefectures());
+            addPrefectures(model, userOrderForm);
             model.addAttribute("userOrderForm", userOrderForm);
             return "confirm";
         }
 
-        UserOrderDto dto = new UserOrderDto();
-        BeanUtils.copyProperties(userOrderForm, dto);
-        estimateService.registerOrder(dto);
+        UserOrderDto dto = userOrderMapper.toDto(userOrderForm);
+        // ジャーナルに記録した時点で受け付け、DBへの登録はバックグラウンドで行う。
+        orderWriteBehindService.submit(dto);
 
         return "complete";
     }
 
+    /**
+     * 画面に表示する都道府県の一覧を設定する。
+     * 都道府県の一覧・都道府県名・プルダウンの選択肢は参照データとして保持しているものを使い、DBには問い合わせない。
+     *
+     * @param model         遷移先に連携するデータ
+     * @param userOrderForm 顧客が入力した見積もり依頼情報
+     */
+    private void addPrefectures(Model model, UserOrderForm userOrderForm) {
+        PrefectureCatalog prefectures = pricingSnapshotHolder.get().getPrefectures();
+        model.addAttribute("prefectures", prefectures.getPrefectures());
+        model.addAttribute("prefectureNames", prefectures.getNames());
+        model.addAttribute("oldPrefectureOptions", prefectures.getOptions(userOrderForm.getOldPrefectureId()));
+        model.addAttribute("newPrefectureOptions", prefectures.getOptions(userOrderForm.getNewPrefectureId()));
+    }
 }
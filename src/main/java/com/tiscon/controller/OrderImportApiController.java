@@ -0,0 +1,70 @@
+package com.tiscon.controller;
+
+import com.tiscon.dto.OrderImportResult;
+import com.tiscon.service.OrderImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 申し込みのファイルを一括で取り込むAPIを提供するコントローラークラス。
+ * リクエストの本文はメモリに読み込まず、受信しながら取り込む。
+ */
+@RestController
+@RequestMapping("api/orders")
+public class OrderImportApiController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final OrderImportService orderImportService;
+
+    /**
+     * コンストラクタ
+     *
+     * @param orderImportService OrderImportServiceクラス
+     */
+    public OrderImportApiController(OrderImportService orderImportService) {
+        this.orderImportService = orderImportService;
+    }
+
+    /**
+     * 申し込みのファイル(CSVまたはNDJSON、UTF-8)を取り込む。
+     *
+     * @param contentType ファイルの形式(text/csvまたはapplication/x-ndjson)
+     * @param body        ファイルの内容
+     * @return 処理件数と処理時間、登録しなかった申し込みを書き出したファイル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    @PostMapping(value = "import", consumes = {TEXT_CSV, APPLICATION_NDJSON}, produces = MediaType.APPLICATION_JSON_VALUE)
+    OrderImportResult importOrders(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body)
+            throws IOException {
+        OrderImportService.Format format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON))
+                ? OrderImportService.Format.NDJSON : OrderImportService.Format.CSV;
+        return orderImportService.importOrders(body, format);
+    }
+
+    /**
+     * CSVの見出しが不正な場合は、取り込めないファイルとして400を返却する。
+     *
+     * @param e 発生した例外
+     * @return エラーの内容
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Map<String, String> handleIllegalArgument(IllegalArgumentException e) {
+        return Map.of("message", e.getMessage());
+    }
+}
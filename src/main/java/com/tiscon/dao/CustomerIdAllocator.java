@@ -0,0 +1,70 @@
+package com.tiscon.dao;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 顧客IDを採番するクラス。
+ * <p>
+ * シーケンスからは顧客IDをブロック単位(例えば100件ずつ)で予約し、ブロック内の顧客IDはメモリ上で払い出す(hi/lo方式)。
+ * 顧客を登録する前に顧客IDが決まるため、複数の申し込みの顧客・オプションサービス・荷物を
+ * テーブルごとに1回の一括登録で登録できる。使われずに残ったブロック内の顧客IDは欠番となる。
+ */
+@Component
+public class CustomerIdAllocator {
+
+    private final EstimateDao estimateDAO;
+
+    /** 1回に予約する顧客IDの件数(シーケンスの増分に設定する値) */
+    private final int blockSize;
+
+    /** 次に払い出す顧客ID */
+    private long next;
+
+    /** 予約済みのブロックの終端(この顧客IDは含まない) */
+    private long limit;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param estimateDAO EstimateDaoクラス
+     * @param blockSize   1回に予約する顧客IDの件数
+     */
+    public CustomerIdAllocator(EstimateDao estimateDAO,
+                               @Value("${estimate.customer-id.block-size:100}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("顧客IDのブロックの大きさが不正です。blockSize=" + blockSize);
+        }
+        this.estimateDAO = estimateDAO;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * シーケンスを登録済みの顧客IDと重ならないように、1回に予約する件数ずつ採番するように設定する。
+     */
+    @PostConstruct
+    public void initialize() {
+        estimateDAO.adjustCustomerIdSequence(blockSize);
+    }
+
+    /**
+     * 顧客IDを指定した件数払い出す。予約済みのブロックが足りない場合はシーケンスから追加で予約する。
+     *
+     * @param count 件数
+     * @return 顧客ID
+     */
+    public synchronized int[] allocate(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (next >= limit) {
+                next = estimateDAO.reserveCustomerIdBlock();
+                // 後から起動したプロセスが増分を変更していることがあるため、設定値ではなくシーケンスの増分を使う
+                limit = next + estimateDAO.getCustomerIdIncrement();
+            }
+            ids[i] = Math.toIntExact(next++);
+        }
+        return ids;
+    }
+}
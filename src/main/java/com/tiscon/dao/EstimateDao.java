@@ -1,18 +1,15 @@
 package com.tiscon.dao;
 
 import com.tiscon.domain.*;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.*;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Date;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
-import java.util.Calendar;
+import java.util.Map;
 
 /**
  * 引越し見積もり機能においてDBとのやり取りを行うクラス。
@@ -20,8 +17,85 @@ import java.util.Calendar;
  * @author Oikawa Yumi
  */
 @Component
+@DependsOn("referenceDataInitializer")
 public class EstimateDao {
 
+    /** DBアクセスの処理時間のメトリクス名。メソッド名ごとにタグを付けて計測する */
+    static final String DAO_METRIC = "estimate.dao";
+
+    /** 引っ越し日ごとの予約件数と段ボール数の検索結果を1行ずつ変換する(リフレクションを使わずにセッターへ直接設定する) */
+    private static final RowMapper<BookedVolume> BOOKED_VOLUME_ROW_MAPPER = (rs, rowNum) -> {
+        BookedVolume bookedVolume = new BookedVolume();
+        bookedVolume.setMovingDate(rs.getObject("MOVING_DATE", LocalDate.class));
+        bookedVolume.setCustomerCount(rs.getInt("CUSTOMER_COUNT"));
+        bookedVolume.setBoxCount(rs.getLong("BOX_COUNT"));
+        return bookedVolume;
+    };
+
+    /** 都道府県の検索結果を1行ずつ変換する */
+    private static final RowMapper<Prefecture> PREFECTURE_ROW_MAPPER = (rs, rowNum) -> {
+        Prefecture prefecture = new Prefecture();
+        prefecture.setPrefectureId(rs.getString("PREFECTURE_ID"));
+        prefecture.setPrefectureName(rs.getString("PREFECTURE_NAME"));
+        return prefecture;
+    };
+
+    /** 都道府県間の距離の検索結果を1行ずつ変換する */
+    private static final RowMapper<PrefectureDistance> PREFECTURE_DISTANCE_ROW_MAPPER = (rs, rowNum) -> {
+        PrefectureDistance prefectureDistance = new PrefectureDistance();
+        prefectureDistance.setPrefectureIdFrom(rs.getString("PREFECTURE_ID_FROM"));
+        prefectureDistance.setPrefectureIdTo(rs.getString("PREFECTURE_ID_TO"));
+        prefectureDistance.setDistance(rs.getDouble("DISTANCE"));
+        return prefectureDistance;
+    };
+
+    /** 荷物ごとの段ボール数の検索結果を1行ずつ変換する */
+    private static final RowMapper<PackageBox> PACKAGE_BOX_ROW_MAPPER = (rs, rowNum) -> {
+        PackageBox packageBox = new PackageBox();
+        packageBox.setPackageId(rs.getInt("PACKAGE_ID"));
+        packageBox.setPackageName(rs.getString("PACKAGE_NAME"));
+        packageBox.setBox(rs.getInt("BOX"));
+        return packageBox;
+    };
+
+    /** トラックの積載量と料金の検索結果を1行ずつ変換する */
+    private static final RowMapper<TruckCapacity> TRUCK_CAPACITY_ROW_MAPPER = (rs, rowNum) -> {
+        TruckCapacity truckCapacity = new TruckCapacity();
+        truckCapacity.setTruckId(rs.getInt("TRUCK_ID"));
+        truckCapacity.setTruckType(rs.getString("TRUCK_TYPE"));
+        truckCapacity.setMaxBox(rs.getInt("MAX_BOX"));
+        truckCapacity.setPrice(rs.getInt("PRICE"));
+        return truckCapacity;
+    };
+
+    /** オプションサービスの検索結果を1行ずつ変換する */
+    private static final RowMapper<OptionalService> OPTIONAL_SERVICE_ROW_MAPPER = (rs, rowNum) -> {
+        OptionalService optionalService = new OptionalService();
+        optionalService.setServiceId(rs.getInt("SERVICE_ID"));
+        optionalService.setServiceName(rs.getString("SERVICE_NAME"));
+        optionalService.setPrice(rs.getInt("PRICE"));
+        return optionalService;
+    };
+
+    /** 季節ごとの係数の検索結果を1行ずつ変換する */
+    private static final RowMapper<SeasonCoefficient> SEASON_COEFFICIENT_ROW_MAPPER = (rs, rowNum) -> {
+        SeasonCoefficient seasonCoefficient = new SeasonCoefficient();
+        seasonCoefficient.setSeasonId(rs.getInt("SEASON_ID"));
+        seasonCoefficient.setStartMonthDay(rs.getString("START_MONTH_DAY"));
+        seasonCoefficient.setEndMonthDay(rs.getString("END_MONTH_DAY"));
+        seasonCoefficient.setCoefficient(rs.getDouble("COEFFICIENT"));
+        seasonCoefficient.setHolidayCoefficient(rs.getDouble("HOLIDAY_COEFFICIENT"));
+        return seasonCoefficient;
+    };
+
+    /** 祝日の検索結果を1行ずつ変換する */
+    private static final RowMapper<Holiday> HOLIDAY_ROW_MAPPER = (rs, rowNum) -> {
+        Holiday holiday = new Holiday();
+        holiday.setHolidayDate(rs.getObject("HOLIDAY_DATE", LocalDate.class));
+        holiday.setHolidayName(rs.getString("HOLIDAY_NAME"));
+        return holiday;
+    };
+
     /** データベース・アクセスAPIである「JDBC」を使い、名前付きパラメータを用いてSQLを実行するクラス */
     private final NamedParameterJdbcTemplate parameterJdbcTemplate;
 
@@ -35,30 +109,110 @@ public class EstimateDao {
     }
 
     /**
-     * 顧客テーブルに登録する。
+     * 顧客IDを採番済みの顧客をまとめて顧客テーブルに登録する。
      *
-     * @param customer 顧客情報
+     * @param customers 顧客情報
      * @return 登録件数
      */
-    public int insertCustomer(Customer customer) {
-        String sql = "INSERT INTO CUSTOMER(OLD_PREFECTURE_ID, NEW_PREFECTURE_ID, CUSTOMER_NAME, TEL, EMAIL, OLD_ADDRESS, NEW_ADDRESS, MOVING_DATE)"
-                + " VALUES(:oldPrefectureId, :newPrefectureId, :customerName, :tel, :email, :oldAddress, :newAddress, :movingDate)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        int resultNum = parameterJdbcTemplate.update(sql, new BeanPropertySqlParameterSource(customer), keyHolder);
-        customer.setCustomerId(keyHolder.getKey().intValue());
-        return resultNum;
+    @Timed(DAO_METRIC)
+    public int[] batchInsertCustomers(List<Customer> customers) {
+        String sql = "INSERT INTO CUSTOMER(CUSTOMER_ID, OLD_PREFECTURE_ID, NEW_PREFECTURE_ID, CUSTOMER_NAME, TEL, EMAIL, OLD_ADDRESS, NEW_ADDRESS, MOVING_DATE)"
+                + " VALUES(:customerId, :oldPrefectureId, :newPrefectureId, :customerName, :tel, :email, :oldAddress, :newAddress, :movingDate)";
+        SqlParameterSource[] batch = new SqlParameterSource[customers.size()];
+        for (int i = 0; i < batch.length; i++) {
+            Customer customer = customers.get(i);
+            batch[i] = new MapSqlParameterSource("customerId", customer.getCustomerId())
+                    .addValue("oldPrefectureId", customer.getOldPrefectureId())
+                    .addValue("newPrefectureId", customer.getNewPrefectureId())
+                    .addValue("customerName", customer.getCustomerName())
+                    .addValue("tel", customer.getTel())
+                    .addValue("email", customer.getEmail())
+                    .addValue("oldAddress", customer.getOldAddress())
+                    .addValue("newAddress", customer.getNewAddress())
+                    .addValue("movingDate", customer.getMovingDate());
+        }
+
+        return parameterJdbcTemplate.batchUpdate(sql, batch);
     }
 
     /**
-     * オプションサービス_顧客テーブルに登録する。
+     * 顧客IDのシーケンスから、顧客IDのブロックを1つ予約する。
      *
-     * @param optionService オプションサービス_顧客に登録する内容
+     * @return 予約したブロックの先頭の顧客ID。ブロックの大きさはシーケンスの増分
+     */
+    @Timed(DAO_METRIC)
+    public int reserveCustomerIdBlock() {
+        return parameterJdbcTemplate.queryForObject("SELECT NEXT VALUE FOR CUSTOMER_ID_SEQ",
+                EmptySqlParameterSource.INSTANCE, Integer.class);
+    }
+
+    /**
+     * 顧客IDのシーケンスの現在の増分を取得する。
+     * <p>
+     * 増分は後から起動したプロセスが変更することがあるため、ブロックを予約した後に取得した値をブロックの大きさとする。
+     * 増分を大きくする変更は現在値から、小さくする変更は最後に予約されたブロックの終端から採番を再開するため、
+     * 予約後に増分が変わっても、取得した増分の範囲は他のプロセスが予約するブロックと重ならない。
+     *
+     * @return シーケンスの増分
+     */
+    @Timed(DAO_METRIC)
+    public int getCustomerIdIncrement() {
+        return parameterJdbcTemplate.queryForObject("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+                        + " WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = 'CUSTOMER_ID_SEQ'",
+                EmptySqlParameterSource.INSTANCE, Integer.class);
+    }
+
+    /**
+     * 顧客IDのシーケンスを、指定した大きさのブロックで登録済みの顧客IDと重ならないように採番するように設定する。
+     * <p>
+     * 同じDBを使う他のプロセスが予約したブロックを再び払い出さないよう、
+     * シーケンスが登録済みの顧客IDより遅れている場合だけ採番を再開する。
+     * 増分を小さくする場合は、最後に予約されたブロックの終端から採番を再開する。
+     *
+     * @param blockSize ブロックの大きさ
+     */
+    @Timed(DAO_METRIC)
+    public void adjustCustomerIdSequence(int blockSize) {
+        Integer maxCustomerId = parameterJdbcTemplate.queryForObject("SELECT MAX(CUSTOMER_ID) FROM CUSTOMER",
+                EmptySqlParameterSource.INSTANCE, Integer.class);
+        Map<String, Object> sequence = parameterJdbcTemplate.queryForMap(
+                "SELECT CURRENT_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+                        + " WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = 'CUSTOMER_ID_SEQ'",
+                EmptySqlParameterSource.INSTANCE);
+        long currentValue = ((Number) sequence.get("CURRENT_VALUE")).longValue();
+        long increment = ((Number) sequence.get("INCREMENT")).longValue();
+        // 最後に予約されたブロックの終端。次に払い出される顧客IDもここから始まる。
+        long next = currentValue + increment;
+        long start = (maxCustomerId == null ? 0 : maxCustomerId) + 1L;
+
+        // DDLにはパラメータを使えないため、数値を埋め込む。
+        if (next < start || blockSize < increment) {
+            parameterJdbcTemplate.getJdbcOperations().execute("ALTER SEQUENCE CUSTOMER_ID_SEQ RESTART WITH "
+                    + Math.max(next, start) + " INCREMENT BY " + blockSize);
+        } else if (blockSize != increment) {
+            // 増分を大きくするだけなら、予約済みのブロックと重ならない。
+            parameterJdbcTemplate.getJdbcOperations().execute("ALTER SEQUENCE CUSTOMER_ID_SEQ INCREMENT BY " + blockSize);
+        }
+    }
+
+    /**
+     * オプションサービス_顧客テーブルにまとめて登録する。
+     *
+     * @param optionServices オプションサービス_顧客に登録する内容
      * @return 登録件数
      */
-    public int insertCustomersOptionService(CustomerOptionService optionService) {
+    @Timed(DAO_METRIC)
+    public int[] batchInsertCustomersOptionService(List<CustomerOptionService> optionServices) {
         String sql = "INSERT INTO CUSTOMER_OPTION_SERVICE(CUSTOMER_ID, SERVICE_ID)"
                 + " VALUES(:customerId, :serviceId)";
-        return parameterJdbcTemplate.update(sql, new BeanPropertySqlParameterSource(optionService));
+        SqlParameterSource[] batch = new SqlParameterSource[optionServices.size()];
+        for (int i = 0; i < batch.length; i++) {
+            CustomerOptionService optionService = optionServices.get(i);
+            batch[i] = new MapSqlParameterSource("customerId", optionService.getCustomerId())
+                    .addValue("serviceId", optionService.getServiceId());
+        }
+
+        return parameterJdbcTemplate.batchUpdate(sql, batch);
     }
 
     /**
@@ -67,125 +221,154 @@ public class EstimateDao {
      * @param packages 登録する荷物
      * @return 登録件数
      */
+    @Timed(DAO_METRIC)
     public int[] batchInsertCustomerPackage(List<CustomerPackage> packages) {
         String sql = "INSERT INTO CUSTOMER_PACKAGE(CUSTOMER_ID, PACKAGE_ID, PACKAGE_NUMBER)"
                 + " VALUES(:customerId, :packageId, :packageNumber)";
-        SqlParameterSource[] batch = SqlParameterSourceUtils.createBatch(packages.toArray());
+        SqlParameterSource[] batch = new SqlParameterSource[packages.size()];
+        for (int i = 0; i < batch.length; i++) {
+            CustomerPackage customerPackage = packages.get(i);
+            batch[i] = new MapSqlParameterSource("customerId", customerPackage.getCustomerId())
+                    .addValue("packageId", customerPackage.getPackageId())
+                    .addValue("packageNumber", customerPackage.getPackageNumber());
+        }
 
         return parameterJdbcTemplate.batchUpdate(sql, batch);
     }
 
+    /**
+     * 申し込みジャーナルのうち、DBへの登録が済んだ最後の連番を取得する。
+     *
+     * @param journalId ジャーナルID
+     * @return 連番。登録が済んだ申し込みがない場合は0
+     */
+    @Timed(DAO_METRIC)
+    public long getOrderJournalCheckpoint(int journalId) {
+        String sql = "SELECT LAST_SEQUENCE FROM ORDER_JOURNAL_CHECKPOINT WHERE JOURNAL_ID = :journalId";
+        List<Long> result = parameterJdbcTemplate.queryForList(sql,
+                new MapSqlParameterSource("journalId", journalId), Long.class);
+        return result.isEmpty() ? 0L : result.get(0);
+    }
+
+    /**
+     * 申し込みジャーナルのうち、DBへの登録が済んだ最後の連番を更新する。
+     * 申し込みの登録と同じトランザクションで呼び出すこと。
+     *
+     * @param journalId    ジャーナルID
+     * @param lastSequence 連番
+     * @return 更新件数
+     */
+    @Timed(DAO_METRIC)
+    public int updateOrderJournalCheckpoint(int journalId, long lastSequence) {
+        String sql = "MERGE INTO ORDER_JOURNAL_CHECKPOINT(JOURNAL_ID, LAST_SEQUENCE) KEY(JOURNAL_ID)"
+                + " VALUES(:journalId, :lastSequence)";
+        SqlParameterSource paramSource = new MapSqlParameterSource("journalId", journalId)
+                .addValue("lastSequence", lastSequence);
+        return parameterJdbcTemplate.update(sql, paramSource);
+    }
+
+    /**
+     * 引っ越し日ごとの予約件数と段ボール数を取得する。
+     *
+     * @param from 集計する期間の開始日
+     * @param to   集計する期間の終了日(この日を含む)
+     * @return 引っ越し日ごとの予約件数と段ボール数。引っ越し日の昇順
+     */
+    @Timed(DAO_METRIC)
+    public List<BookedVolume> getBookedVolumes(LocalDate from, LocalDate to) {
+        String sql = "SELECT C.MOVING_DATE, COUNT(DISTINCT C.CUSTOMER_ID) CUSTOMER_COUNT,"
+                + " COALESCE(SUM(CP.PACKAGE_NUMBER * PB.BOX), 0) BOX_COUNT"
+                + " FROM CUSTOMER C"
+                + " LEFT JOIN CUSTOMER_PACKAGE CP ON CP.CUSTOMER_ID = C.CUSTOMER_ID"
+                + " LEFT JOIN PACKAGE_BOX PB ON PB.PACKAGE_ID = CP.PACKAGE_ID"
+                + " WHERE C.MOVING_DATE BETWEEN :from AND :to"
+                + " GROUP BY C.MOVING_DATE ORDER BY C.MOVING_DATE";
+        SqlParameterSource paramSource = new MapSqlParameterSource("from", from).addValue("to", to);
+        return parameterJdbcTemplate.query(sql, paramSource,
+                BOOKED_VOLUME_ROW_MAPPER);
+    }
+
     /**
      * 都道府県テーブルに登録されているすべての都道府県を取得する。
      *
      * @return すべての都道府県
      */
+    @Timed(DAO_METRIC)
     public List<Prefecture> getAllPrefectures() {
-        String sql = "SELECT PREFECTURE_ID, PREFECTURE_NAME FROM PREFECTURE";
+        String sql = "SELECT PREFECTURE_ID, PREFECTURE_NAME FROM PREFECTURE ORDER BY PREFECTURE_ID";
         return parameterJdbcTemplate.query(sql,
-                BeanPropertyRowMapper.newInstance(Prefecture.class));
+                PREFECTURE_ROW_MAPPER);
     }
 
     /**
-     * 都道府県間の距離を取得する。
+     * 都道府県間の距離テーブルに登録されているすべての距離を取得する。
      *
-     * @param prefectureIdFrom 引っ越し元の都道府県
-     * @param prefectureIdTo   引越し先の都道府県
-     * @return 距離[km]
+     * @return すべての都道府県間の距離
      */
-    public double getDistance(String prefectureIdFrom, String prefectureIdTo) {
-        // 都道府県のFromとToが逆転しても同じ距離となるため、「そのままの状態のデータ」と「FromとToを逆転させたデータ」をくっつけた状態で距離を取得する。
-        String sql = "SELECT DISTANCE FROM (" +
-                "SELECT PREFECTURE_ID_FROM, PREFECTURE_ID_TO, DISTANCE FROM PREFECTURE_DISTANCE UNION ALL " +
-                "SELECT PREFECTURE_ID_TO PREFECTURE_ID_FROM ,PREFECTURE_ID_FROM PREFECTURE_ID_TO ,DISTANCE FROM PREFECTURE_DISTANCE) " +
-                "WHERE PREFECTURE_ID_FROM  = :prefectureIdFrom AND PREFECTURE_ID_TO  = :prefectureIdTo";
-
-        PrefectureDistance prefectureDistance = new PrefectureDistance();
-        prefectureDistance.setPrefectureIdFrom(prefectureIdFrom);
-        prefectureDistance.setPrefectureIdTo(prefectureIdTo);
-
-        double distance;
-        try {
-            distance = parameterJdbcTemplate.queryForObject(sql, new BeanPropertySqlParameterSource(prefectureDistance), double.class);
-        } catch (IncorrectResultSizeDataAccessException e) {
-            distance = 0;
-        }
-        return distance;
+    @Timed(DAO_METRIC)
+    public List<PrefectureDistance> getAllPrefectureDistances() {
+        String sql = "SELECT PREFECTURE_ID_FROM, PREFECTURE_ID_TO, DISTANCE FROM PREFECTURE_DISTANCE";
+        return parameterJdbcTemplate.query(sql,
+                PREFECTURE_DISTANCE_ROW_MAPPER);
     }
 
     /**
-     * 荷物ごとの段ボール数を取得する。
+     * 荷物_段ボールテーブルに登録されているすべての荷物を取得する。
      *
-     * @param packageId 荷物ID
-     * @return 段ボール数
+     * @return すべての荷物
      */
-    public int getBoxPerPackage(int packageId) {
-        String sql = "SELECT BOX FROM PACKAGE_BOX WHERE PACKAGE_ID = :packageId";
-
-        SqlParameterSource paramSource = new MapSqlParameterSource("packageId", packageId);
-        return parameterJdbcTemplate.queryForObject(sql, paramSource, Integer.class);
+    @Timed(DAO_METRIC)
+    public List<PackageBox> getAllPackageBoxes() {
+        String sql = "SELECT PACKAGE_ID, PACKAGE_NAME, BOX FROM PACKAGE_BOX";
+        return parameterJdbcTemplate.query(sql,
+                PACKAGE_BOX_ROW_MAPPER);
     }
 
     /**
-     * 段ボール数に応じたトラック料金を取得する。
+     * トラック積載量テーブルに登録されているすべてのトラックを取得する。
      *
-     * @param boxNum 総段ボール数
-     * @return 料金[円]
+     * @return すべてのトラック
      */
-    public int getPricePerTruck(int boxNum) {
-        int returnPrice = 0;
-        SqlParameterSource paramSource = new MapSqlParameterSource();
-        String sql = "SELECT MAX_BOX FROM TRUCK_CAPACITY ORDER BY MAX_BOX DESC LIMIT 1";
-        int maxCap = parameterJdbcTemplate.queryForObject(sql, paramSource, Integer.class);
-        sql = "SELECT PRICE FROM TRUCK_CAPACITY ORDER BY MAX_BOX DESC LIMIT 1";
-        int maxPrice = parameterJdbcTemplate.queryForObject(sql, paramSource, Integer.class);
-        if(boxNum>maxCap){
-            returnPrice = maxPrice * (boxNum / maxCap);
-            boxNum = boxNum % maxCap;
-        }
-        paramSource = new MapSqlParameterSource("boxNum", boxNum);
-        sql = "SELECT PRICE FROM TRUCK_CAPACITY WHERE MAX_BOX >= :boxNum ORDER BY PRICE LIMIT 1";
-        returnPrice += parameterJdbcTemplate.queryForObject(sql, paramSource, Integer.class);
-        return returnPrice;
+    @Timed(DAO_METRIC)
+    public List<TruckCapacity> getAllTruckCapacities() {
+        String sql = "SELECT TRUCK_ID, TRUCK_TYPE, MAX_BOX, PRICE FROM TRUCK_CAPACITY";
+        return parameterJdbcTemplate.query(sql,
+                TRUCK_CAPACITY_ROW_MAPPER);
     }
 
     /**
-     * オプションサービスの料金を取得する。
+     * オプションサービステーブルに登録されているすべてのサービスを取得する。
      *
-     * @param serviceId サービスID
-     * @return 料金
+     * @return すべてのオプションサービス
      */
-    public int getPricePerOptionalService(int serviceId) {
-        String sql = "SELECT PRICE FROM OPTIONAL_SERVICE WHERE SERVICE_ID = :serviceId";
-
-        SqlParameterSource paramSource = new MapSqlParameterSource("serviceId", serviceId);
-        return parameterJdbcTemplate.queryForObject(sql, paramSource, Integer.class);
+    @Timed(DAO_METRIC)
+    public List<OptionalService> getAllOptionalServices() {
+        String sql = "SELECT SERVICE_ID, SERVICE_NAME, PRICE FROM OPTIONAL_SERVICE";
+        return parameterJdbcTemplate.query(sql,
+                OPTIONAL_SERVICE_ROW_MAPPER);
     }
 
     /**
-     * 季節係数を計算する
+     * 季節係数テーブルに登録されているすべての季節を取得する。
      *
-     * @param movingDate 引っ越し日
-     * @return 季節係数
+     * @return すべての季節ごとの係数
      */
-    public double getSeasonCoefficient(String movingDate) {
-        double seasonCoefficient = 1.0;
-
-        try {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            Date movingDate_date = dateFormat.parse(movingDate);
-            Calendar movingDate_calendar = Calendar.getInstance();
-            movingDate_calendar.setTime(movingDate_date);
-            int movingMonth = movingDate_calendar.get(Calendar.MONTH) + 1; // calendarのmonthは0始まり
-            if(movingMonth==3 || movingMonth==4){
-                seasonCoefficient = 1.5;
-            }else if(movingMonth==9) {
-                seasonCoefficient = 1.2;
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
+    @Timed(DAO_METRIC)
+    public List<SeasonCoefficient> getAllSeasonCoefficients() {
+        String sql = "SELECT SEASON_ID, START_MONTH_DAY, END_MONTH_DAY, COEFFICIENT, HOLIDAY_COEFFICIENT FROM SEASON_COEFFICIENT";
+        return parameterJdbcTemplate.query(sql,
+                SEASON_COEFFICIENT_ROW_MAPPER);
+    }
 
-        return seasonCoefficient;
+    /**
+     * 祝日テーブルに登録されているすべての祝日を取得する。
+     *
+     * @return すべての祝日
+     */
+    @Timed(DAO_METRIC)
+    public List<Holiday> getAllHolidays() {
+        String sql = "SELECT HOLIDAY_DATE, HOLIDAY_NAME FROM HOLIDAY";
+        return parameterJdbcTemplate.query(sql,
+                HOLIDAY_ROW_MAPPER);
     }
 }
@@ -0,0 +1,145 @@
+package com.tiscon.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * DBのテーブルと参照データ(都道府県・距離・料金など)を準備するクラス。
+ * <p>
+ * テーブルの作成(schema.sql)は起動のたびに行うが、参照データの読み込み(data.sql)は
+ * data.sqlと参照データのCSVのチェックサムが前回読み込んだときから変わった場合だけ行う。
+ * CSVを変更せずに再起動した場合は、CSVの読み込みとMERGEを省略するため起動が速くなる。
+ * 既存のDBの列の変更はschema.sqlのALTER TABLEで行うため、登録済みの顧客のデータは消えない。
+ */
+@Component
+public class ReferenceDataInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataInitializer.class);
+
+    /** 参照データのチェックサムを記録する行のID */
+    private static final int REFERENCE_DATA_ID = 1;
+
+    private static final String SCHEMA_LOCATION = "classpath:schema.sql";
+
+    private static final String DATA_LOCATION = "classpath:data.sql";
+
+    /** data.sqlが読み込むCSV */
+    private static final String CSV_LOCATION = "classpath:data/*.csv";
+
+    private final DataSource dataSource;
+
+    private final NamedParameterJdbcTemplate parameterJdbcTemplate;
+
+    private final ResourcePatternResolver resourceResolver;
+
+    /** チェックサムが変わっていなくても参照データを読み込むかどうか */
+    private final boolean alwaysLoad;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param dataSource            データソース
+     * @param parameterJdbcTemplate NamedParameterJdbcTemplateクラス
+     * @param resourceResolver      SQLとCSVを読み込むためのResourcePatternResolver
+     * @param alwaysLoad            チェックサムが変わっていなくても参照データを読み込むかどうか
+     */
+    public ReferenceDataInitializer(DataSource dataSource, NamedParameterJdbcTemplate parameterJdbcTemplate,
+                                    ResourcePatternResolver resourceResolver,
+                                    @Value("${estimate.reference-data.always-load:false}") boolean alwaysLoad) {
+        this.dataSource = dataSource;
+        this.parameterJdbcTemplate = parameterJdbcTemplate;
+        this.resourceResolver = resourceResolver;
+        this.alwaysLoad = alwaysLoad;
+    }
+
+    /**
+     * テーブルを作成し、参照データが変わっている場合は読み込む。
+     *
+     * @throws IOException SQLまたはCSVを読み込めなかった場合
+     */
+    @PostConstruct
+    public void initialize() throws IOException {
+        long start = System.nanoTime();
+        execute(resourceResolver.getResource(SCHEMA_LOCATION));
+
+        Resource data = resourceResolver.getResource(DATA_LOCATION);
+        String checksum = checksum(data);
+        List<String> loaded = parameterJdbcTemplate.queryForList(
+                "SELECT CHECKSUM FROM REFERENCE_DATA_CHECKSUM WHERE ID = :id",
+                new MapSqlParameterSource("id", REFERENCE_DATA_ID), String.class);
+        if (!alwaysLoad && loaded.contains(checksum)) {
+            LOGGER.info("参照データに変更がないため読み込みを省略しました。checksum={}", checksum);
+            return;
+        }
+
+        execute(data);
+        // 読み込みが完了してから記録する。途中で失敗した場合は次回の起動時に読み込み直す(MERGEのため何度実行してもよい)。
+        parameterJdbcTemplate.update("MERGE INTO REFERENCE_DATA_CHECKSUM(ID, CHECKSUM, LOADED_AT) KEY(ID)"
+                        + " VALUES(:id, :checksum, CURRENT_TIMESTAMP)",
+                new MapSqlParameterSource("id", REFERENCE_DATA_ID).addValue("checksum", checksum));
+        LOGGER.info("参照データを読み込みました。checksum={}, 処理時間={}ms",
+                checksum, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void execute(Resource script) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(script);
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        DatabasePopulatorUtils.execute(populator, dataSource);
+    }
+
+    /**
+     * data.sqlと参照データのCSVのSHA-256を求める。CSVはファイル名の順に読み込む。
+     *
+     * @param data data.sql
+     * @return 16進数のチェックサム
+     * @throws IOException 読み込めなかった場合
+     */
+    private String checksum(Resource data) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Resource[] csvFiles = resourceResolver.getResources(CSV_LOCATION);
+        Arrays.sort(csvFiles, Comparator.comparing(Resource::getFilename));
+        update(digest, data);
+        for (Resource csv : csvFiles) {
+            digest.update(csv.getFilename().getBytes(StandardCharsets.UTF_8));
+            update(digest, csv);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest digest, Resource resource) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = resource.getInputStream()) {
+            for (int read; (read = in.read(buffer)) >= 0; ) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+}
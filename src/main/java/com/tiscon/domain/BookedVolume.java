@@ -0,0 +1,37 @@
+package com.tiscon.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public class BookedVolume implements Serializable {
+
+    private LocalDate movingDate;
+
+    private int customerCount;
+
+    private long boxCount;
+
+    public LocalDate getMovingDate() {
+        return movingDate;
+    }
+
+    public void setMovingDate(LocalDate movingDate) {
+        this.movingDate = movingDate;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public void setCustomerCount(int customerCount) {
+        this.customerCount = customerCount;
+    }
+
+    public long getBoxCount() {
+        return boxCount;
+    }
+
+    public void setBoxCount(long boxCount) {
+        this.boxCount = boxCount;
+    }
+}
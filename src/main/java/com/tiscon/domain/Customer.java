@@ -1,6 +1,7 @@
 package com.tiscon.domain;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 
 public class Customer implements Serializable {
 
@@ -20,7 +21,7 @@ public class Customer implements Serializable {
 
     private String newAddress;
 
-    private String movingDate;
+    private LocalDate movingDate;
 
     public int getCustomerId() {
         return customerId;
@@ -86,9 +87,9 @@ public class Customer implements Serializable {
         this.newAddress = newAddress;
     }
 
-    public String getMovingDate() {
+    public LocalDate getMovingDate() {
         return movingDate;
     }
 
-    public void setMovingDate(String movingDate) { this.movingDate = movingDate; }
+    public void setMovingDate(LocalDate movingDate) { this.movingDate = movingDate; }
 }
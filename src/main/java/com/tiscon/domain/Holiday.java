@@ -0,0 +1,27 @@
+package com.tiscon.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public class Holiday implements Serializable {
+
+    private LocalDate holidayDate;
+
+    private String holidayName;
+
+    public LocalDate getHolidayDate() {
+        return holidayDate;
+    }
+
+    public void setHolidayDate(LocalDate holidayDate) {
+        this.holidayDate = holidayDate;
+    }
+
+    public String getHolidayName() {
+        return holidayName;
+    }
+
+    public void setHolidayName(String holidayName) {
+        this.holidayName = holidayName;
+    }
+}
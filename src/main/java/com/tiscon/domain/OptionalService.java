@@ -0,0 +1,36 @@
+package com.tiscon.domain;
+
+import java.io.Serializable;
+
+public class OptionalService implements Serializable {
+
+    private int serviceId;
+
+    private String serviceName;
+
+    private int price;
+
+    public int getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(int serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+}
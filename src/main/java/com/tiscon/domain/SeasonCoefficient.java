@@ -0,0 +1,56 @@
+package com.tiscon.domain;
+
+import java.io.Serializable;
+
+public class SeasonCoefficient implements Serializable {
+
+    private int seasonId;
+
+    private String startMonthDay;
+
+    private String endMonthDay;
+
+    private double coefficient;
+
+    private double holidayCoefficient;
+
+    public int getSeasonId() {
+        return seasonId;
+    }
+
+    public void setSeasonId(int seasonId) {
+        this.seasonId = seasonId;
+    }
+
+    public String getStartMonthDay() {
+        return startMonthDay;
+    }
+
+    public void setStartMonthDay(String startMonthDay) {
+        this.startMonthDay = startMonthDay;
+    }
+
+    public String getEndMonthDay() {
+        return endMonthDay;
+    }
+
+    public void setEndMonthDay(String endMonthDay) {
+        this.endMonthDay = endMonthDay;
+    }
+
+    public double getCoefficient() {
+        return coefficient;
+    }
+
+    public void setCoefficient(double coefficient) {
+        this.coefficient = coefficient;
+    }
+
+    public double getHolidayCoefficient() {
+        return holidayCoefficient;
+    }
+
+    public void setHolidayCoefficient(double holidayCoefficient) {
+        this.holidayCoefficient = holidayCoefficient;
+    }
+}
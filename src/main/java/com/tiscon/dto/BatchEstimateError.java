@@ -0,0 +1,32 @@
+package com.tiscon.dto;
+
+/**
+ * 一括見積もりで見積もりに失敗した依頼と、その理由。
+ */
+public class BatchEstimateError {
+
+    /** 見積もり依頼の位置(0から数える) */
+    private final int index;
+
+    /** 見積もりに失敗した理由 */
+    private final String message;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param index   見積もり依頼の位置(0から数える)
+     * @param message 見積もりに失敗した理由
+     */
+    public BatchEstimateError(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
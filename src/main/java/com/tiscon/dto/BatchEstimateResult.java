@@ -0,0 +1,55 @@
+package com.tiscon.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 一括見積もりの結果。
+ */
+public class BatchEstimateResult {
+
+    /** 見積もり依頼と同じ順番の概算見積もり結果。見積もりに失敗した依頼はnull(理由はerrorsに含める) */
+    private final List<PriceBreakdown> prices;
+
+    /** 見積もりに失敗した依頼と、その理由。依頼と同じ順番 */
+    private final List<BatchEstimateError> errors;
+
+    /** 処理件数と処理時間 */
+    private final BatchEstimateStatistics statistics;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prices     概算見積もり結果
+     * @param errors     見積もりに失敗した依頼と、その理由
+     * @param statistics 処理件数と処理時間
+     */
+    public BatchEstimateResult(List<PriceBreakdown> prices, List<BatchEstimateError> errors,
+                               BatchEstimateStatistics statistics) {
+        this.prices = Collections.unmodifiableList(prices);
+        this.errors = Collections.unmodifiableList(errors);
+        this.statistics = statistics;
+    }
+
+    public List<PriceBreakdown> getPrices() {
+        return prices;
+    }
+
+    public List<BatchEstimateError> getErrors() {
+        return errors;
+    }
+
+    public BatchEstimateStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 概算見積もり結果を依頼と同じ順番で返却する。
+     *
+     * @return 概算見積もり結果
+     */
+    public Stream<PriceBreakdown> stream() {
+        return prices.stream();
+    }
+}
@@ -0,0 +1,50 @@
+package com.tiscon.dto;
+
+/**
+ * 一括見積もり1回分の処理件数と処理時間。
+ */
+public class BatchEstimateStatistics {
+
+    /** 見積もり依頼の件数 */
+    private final int orderCount;
+
+    /** 見積もりに失敗した件数 */
+    private final int failedCount;
+
+    /** 処理時間[ナノ秒] */
+    private final long elapsedNanos;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param orderCount   見積もり依頼の件数
+     * @param failedCount  見積もりに失敗した件数
+     * @param elapsedNanos 処理時間[ナノ秒]
+     */
+    public BatchEstimateStatistics(int orderCount, int failedCount, long elapsedNanos) {
+        this.orderCount = orderCount;
+        this.failedCount = failedCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 1秒あたりの見積もり件数を返却する。
+     *
+     * @return 1秒あたりの見積もり件数
+     */
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : orderCount * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tiscon.dto;
+
+/**
+ * 申し込みの一括取り込み1回分の処理件数と処理時間。
+ */
+public class OrderImportResult {
+
+    /** 読み込んだ申し込みの件数 */
+    private final long readCount;
+
+    /** DBに登録した件数 */
+    private final long importedCount;
+
+    /** 精査エラーまたはDBの制約違反で登録しなかった件数 */
+    private final long rejectedCount;
+
+    /** 登録しなかった申し込みを書き出したファイル */
+    private final String rejectedFile;
+
+    /** 処理時間[ナノ秒] */
+    private final long elapsedNanos;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param readCount     読み込んだ申し込みの件数
+     * @param importedCount DBに登録した件数
+     * @param rejectedCount 登録しなかった件数
+     * @param rejectedFile  登録しなかった申し込みを書き出したファイル
+     * @param elapsedNanos  処理時間[ナノ秒]
+     */
+    public OrderImportResult(long readCount, long importedCount, long rejectedCount, String rejectedFile,
+                             long elapsedNanos) {
+        this.readCount = readCount;
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.rejectedFile = rejectedFile;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public String getRejectedFile() {
+        return rejectedFile;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 1秒あたりの読み込み件数を返却する。
+     *
+     * @return 1秒あたりの読み込み件数
+     */
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : readCount * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,142 @@
+package com.tiscon.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * 概算見積もり結果の料金の内訳。
+ * <p>
+ * 料金はすべて円単位の整数で保持する。季節係数は1000倍した整数(‰)で掛け、1円未満は切り捨てる。
+ * 合計は距離と荷物の料金を合算してから季節係数を掛けるため、内訳の合計と1円異なる場合がある。
+ * 不変のため、画面・JSON・一括見積もりのいずれでもそのまま共有できる。
+ */
+public final class PriceBreakdown {
+
+    /**
+     * 料金の内訳の項目。
+     */
+    public enum LineItem {
+        /** 距離に応じた料金 */
+        DISTANCE,
+        /** 荷物(トラック)に応じた料金 */
+        CARGO,
+        /** オプションサービスの料金 */
+        OPTION
+    }
+
+    /** 季節係数[‰]の基準値 */
+    private static final long PER_MILLE = 1000;
+
+    /** 合計料金[円] */
+    private final long price;
+
+    /** 距離に応じた料金[円] */
+    private final long distancePrice;
+
+    /** 荷物(トラック)に応じた料金[円] */
+    private final long cargoPrice;
+
+    /** オプションサービスの料金[円] */
+    private final long optionPrice;
+
+    private PriceBreakdown(long price, long distancePrice, long cargoPrice, long optionPrice) {
+        this.price = price;
+        this.distancePrice = distancePrice;
+        this.cargoPrice = cargoPrice;
+        this.optionPrice = optionPrice;
+    }
+
+    /**
+     * 季節係数を掛ける前の料金から内訳を求める。
+     *
+     * @param distanceBase             季節係数を掛ける前の距離に応じた料金[円]
+     * @param cargoBase                季節係数を掛ける前のトラック料金[円]
+     * @param optionPrice              オプションサービスの料金[円](季節係数は掛けない)
+     * @param seasonCoefficientPerMille 季節係数[‰]
+     * @return 料金の内訳
+     * @throws ArithmeticException 料金がlongの範囲を超える場合
+     */
+    public static PriceBreakdown of(long distanceBase, long cargoBase, long optionPrice, int seasonCoefficientPerMille) {
+        return ofMilliYen(Math.multiplyExact(distanceBase, seasonCoefficientPerMille),
+                Math.multiplyExact(cargoBase, seasonCoefficientPerMille), optionPrice);
+    }
+
+    /**
+     * 季節係数を掛けた1/1000円単位の料金から内訳を求める。1円未満は切り捨てる。
+     *
+     * @param distanceMilliYen 季節係数を掛けた距離に応じた料金[1/1000円]
+     * @param cargoMilliYen    季節係数を掛けたトラック料金[1/1000円]
+     * @param optionPrice      オプションサービスの料金[円]
+     * @return 料金の内訳
+     * @throws ArithmeticException 料金がlongの範囲を超える場合
+     */
+    public static PriceBreakdown ofMilliYen(long distanceMilliYen, long cargoMilliYen, long optionPrice) {
+        long distancePrice = Math.floorDiv(distanceMilliYen, PER_MILLE);
+        long cargoPrice = Math.floorDiv(cargoMilliYen, PER_MILLE);
+        long price = Math.addExact(Math.floorDiv(Math.addExact(distanceMilliYen, cargoMilliYen), PER_MILLE), optionPrice);
+        return new PriceBreakdown(price, distancePrice, cargoPrice, optionPrice);
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getDistancePrice() {
+        return distancePrice;
+    }
+
+    public long getCargoPrice() {
+        return cargoPrice;
+    }
+
+    public long getOptionPrice() {
+        return optionPrice;
+    }
+
+    /**
+     * 内訳の項目ごとの料金を取得する。
+     *
+     * @param item 項目
+     * @return 料金[円]
+     */
+    @JsonIgnore
+    public long getAmount(LineItem item) {
+        switch (item) {
+            case DISTANCE:
+                return distancePrice;
+            case CARGO:
+                return cargoPrice;
+            case OPTION:
+                return optionPrice;
+            default:
+                throw new IllegalArgumentException("内訳の項目が不正です。item=" + item);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PriceBreakdown)) {
+            return false;
+        }
+        PriceBreakdown other = (PriceBreakdown) o;
+        return price == other.price && distancePrice == other.distancePrice
+                && cargoPrice == other.cargoPrice && optionPrice == other.optionPrice;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(price);
+        result = 31 * result + Long.hashCode(distancePrice);
+        result = 31 * result + Long.hashCode(cargoPrice);
+        result = 31 * result + Long.hashCode(optionPrice);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceBreakdown{price=" + price + ", distancePrice=" + distancePrice
+                + ", cargoPrice=" + cargoPrice + ", optionPrice=" + optionPrice + "}";
+    }
+}
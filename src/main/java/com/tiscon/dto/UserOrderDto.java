@@ -1,5 +1,7 @@
 package com.tiscon.dto;
 
+import java.time.LocalDate;
+
 public class UserOrderDto {
 
     private String customerName;
@@ -8,10 +10,14 @@ public class UserOrderDto {
 
     private String email;
 
+    private String oldPostalCode;
+
     private String oldPrefectureId;
 
     private String oldAddress;
 
+    private String newPostalCode;
+
     private String newPrefectureId;
 
     private String newAddress;
@@ -24,7 +30,7 @@ public class UserOrderDto {
 
     private String washingMachine;
 
-    private String movingDate;
+    private LocalDate movingDate;
 
     private boolean washingMachineInstallation;
 
@@ -52,6 +58,14 @@ public class UserOrderDto {
         this.email = email;
     }
 
+    public String getOldPostalCode() {
+        return oldPostalCode;
+    }
+
+    public void setOldPostalCode(String oldPostalCode) {
+        this.oldPostalCode = oldPostalCode;
+    }
+
     public String getOldPrefectureId() {
         return oldPrefectureId;
     }
@@ -68,6 +82,14 @@ public class UserOrderDto {
         this.oldAddress = oldAddress;
     }
 
+    public String getNewPostalCode() {
+        return newPostalCode;
+    }
+
+    public void setNewPostalCode(String newPostalCode) {
+        this.newPostalCode = newPostalCode;
+    }
+
     public String getNewPrefectureId() {
         return newPrefectureId;
     }
@@ -124,9 +146,9 @@ public class UserOrderDto {
         this.washingMachineInstallation = washingMachineInstallation;
     }
 
-    public String getMovingDate() {
+    public LocalDate getMovingDate() {
         return movingDate;
     }
 
-    public void setMovingDate(String movingDate) { this.movingDate = movingDate; }
+    public void setMovingDate(LocalDate movingDate) { this.movingDate = movingDate; }
 }
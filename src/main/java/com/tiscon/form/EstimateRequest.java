@@ -0,0 +1,124 @@
+package com.tiscon.form;
+
+import com.tiscon.validator.PostalCode;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+
+/**
+ * JSONで受け付ける見積もり依頼を保持するクラス。
+ * 概算見積もりに必要な項目だけを受け付け、氏名・連絡先・住所は含まない。
+ */
+public class EstimateRequest {
+
+    @PostalCode
+    private String oldPostalCode;
+
+    @NotBlank
+    private String oldPrefectureId;
+
+    @PostalCode
+    private String newPostalCode;
+
+    @NotBlank
+    private String newPrefectureId;
+
+    @PositiveOrZero
+    private int box;
+
+    @PositiveOrZero
+    private int bed;
+
+    @PositiveOrZero
+    private int bicycle;
+
+    @PositiveOrZero
+    private int washingMachine;
+
+    private boolean washingMachineInstallation;
+
+    @NotNull
+    private LocalDate movingDate;
+
+    public String getOldPostalCode() {
+        return oldPostalCode;
+    }
+
+    public void setOldPostalCode(String oldPostalCode) {
+        this.oldPostalCode = oldPostalCode;
+    }
+
+    public String getOldPrefectureId() {
+        return oldPrefectureId;
+    }
+
+    public void setOldPrefectureId(String oldPrefectureId) {
+        this.oldPrefectureId = oldPrefectureId;
+    }
+
+    public String getNewPostalCode() {
+        return newPostalCode;
+    }
+
+    public void setNewPostalCode(String newPostalCode) {
+        this.newPostalCode = newPostalCode;
+    }
+
+    public String getNewPrefectureId() {
+        return newPrefectureId;
+    }
+
+    public void setNewPrefectureId(String newPrefectureId) {
+        this.newPrefectureId = newPrefectureId;
+    }
+
+    public int getBox() {
+        return box;
+    }
+
+    public void setBox(int box) {
+        this.box = box;
+    }
+
+    public int getBed() {
+        return bed;
+    }
+
+    public void setBed(int bed) {
+        this.bed = bed;
+    }
+
+    public int getBicycle() {
+        return bicycle;
+    }
+
+    public void setBicycle(int bicycle) {
+        this.bicycle = bicycle;
+    }
+
+    public int getWashingMachine() {
+        return washingMachine;
+    }
+
+    public void setWashingMachine(int washingMachine) {
+        this.washingMachine = washingMachine;
+    }
+
+    public boolean getWashingMachineInstallation() {
+        return washingMachineInstallation;
+    }
+
+    public void setWashingMachineInstallation(boolean washingMachineInstallation) {
+        this.washingMachineInstallation = washingMachineInstallation;
+    }
+
+    public LocalDate getMovingDate() {
+        return movingDate;
+    }
+
+    public void setMovingDate(LocalDate movingDate) {
+        this.movingDate = movingDate;
+    }
+}
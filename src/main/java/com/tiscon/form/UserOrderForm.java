@@ -1,61 +1,41 @@
 package com.tiscon.form;
 
-import com.tiscon.validator.Numeric;
-
-import javax.validation.constraints.Email;
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
-
 /**
  * 顧客が入力する見積もり情報を保持するクラス。
+ * 入力内容は{@link com.tiscon.validator.UserOrderFormValidator}で精査する。
  *
  * @author Oikawa Yumi
  */
 public class UserOrderForm {
 
-    @NotBlank
     private String customerName;
 
-    @NotBlank
-    @Numeric
     private String tel;
 
-    @Email
-    @NotBlank
     private String email;
 
-    @NotBlank
+    private String oldPostalCode;
+
     private String oldPrefectureId;
 
-    @NotBlank
     private String oldAddress;
 
-    @NotBlank
+    private String newPostalCode;
+
     private String newPrefectureId;
 
-    @NotBlank
     private String newAddress;
 
-    @Numeric
-    @NotBlank
     private String box;
 
-    @Numeric
-    @NotBlank
     private String bed;
 
-    @Numeric
-    @NotBlank
     private String bicycle;
 
-    @Numeric
-    @NotBlank
     private String washingMachine;
 
-    @NotNull
     private boolean washingMachineInstallation;
 
-    @NotBlank
     private String  movingDate;
 
     public String getCustomerName() {
@@ -82,6 +62,14 @@ public class UserOrderForm {
         this.email = email;
     }
 
+    public String getOldPostalCode() {
+        return oldPostalCode;
+    }
+
+    public void setOldPostalCode(String oldPostalCode) {
+        this.oldPostalCode = oldPostalCode;
+    }
+
     public String getOldPrefectureId() {
         return oldPrefectureId;
     }
@@ -98,6 +86,14 @@ public class UserOrderForm {
         this.oldAddress = oldAddress;
     }
 
+    public String getNewPostalCode() {
+        return newPostalCode;
+    }
+
+    public void setNewPostalCode(String newPostalCode) {
+        this.newPostalCode = newPostalCode;
+    }
+
     public String getNewPrefectureId() {
         return newPrefectureId;
     }
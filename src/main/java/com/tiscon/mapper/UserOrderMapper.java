@@ -0,0 +1,46 @@
+package com.tiscon.mapper;
+
+import com.tiscon.domain.Customer;
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.form.EstimateRequest;
+import com.tiscon.form.UserOrderForm;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * 見積もり依頼情報を入力フォーム・DTO・顧客情報の間で変換するクラス。
+ * 実装はコンパイル時に生成され、リフレクションを使わずにゲッター・セッターを直接呼び出す。
+ */
+@Mapper(componentModel = "spring")
+public interface UserOrderMapper {
+
+    /**
+     * 入力フォームをDTOに変換する。引っ越し日はyyyy-MM-dd形式の文字列から日付に変換する。
+     *
+     * @param form 顧客が入力した見積もり依頼情報
+     * @return 見積もり依頼情報
+     */
+    UserOrderDto toDto(UserOrderForm form);
+
+    /**
+     * JSONで受け付けた見積もり依頼をDTOに変換する。氏名・連絡先・住所は設定しない。
+     *
+     * @param request 見積もり依頼
+     * @return 見積もり依頼情報
+     */
+    @Mapping(target = "customerName", ignore = true)
+    @Mapping(target = "tel", ignore = true)
+    @Mapping(target = "email", ignore = true)
+    @Mapping(target = "oldAddress", ignore = true)
+    @Mapping(target = "newAddress", ignore = true)
+    UserOrderDto toDto(EstimateRequest request);
+
+    /**
+     * DTOを顧客情報に変換する。顧客IDは登録時に採番するため設定しない。
+     *
+     * @param dto 見積もり依頼情報
+     * @return 顧客情報
+     */
+    @Mapping(target = "customerId", ignore = true)
+    Customer toCustomer(UserOrderDto dto);
+}
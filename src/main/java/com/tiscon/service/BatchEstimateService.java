@@ -0,0 +1,191 @@
+package com.tiscon.service;
+
+import com.tiscon.dto.BatchEstimateError;
+import com.tiscon.dto.BatchEstimateResult;
+import com.tiscon.dto.BatchEstimateStatistics;
+import com.tiscon.dto.PriceBreakdown;
+import com.tiscon.dto.UserOrderDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 複数の見積もり依頼をまとめて概算見積もりするクラス。
+ * 依頼を分割してFork/Joinプールで並列に計算し、1回の一括見積もりの中では同じ参照データのスナップショットを使う。
+ * <p>
+ * 郵便番号の検索はHTTPの応答を待つため、Fork/Joinプールのスレッドを塞がないよう、
+ * プールで計算する前に呼び出し元のスレッドで非同期に検索して距離を求めておく。
+ */
+@Service
+public class BatchEstimateService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchEstimateService.class);
+
+    /** これ以下の件数になるまで依頼を分割する */
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    /** 同時に検索する郵便番号の組み合わせの最大件数 */
+    private static final int MAX_CONCURRENT_POSTAL_LOOKUPS = 64;
+
+    private final EstimateService estimateService;
+
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    /** 一括見積もり専用のFork/Joinプール */
+    private final ForkJoinPool pool;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param estimateService       EstimateServiceクラス
+     * @param pricingSnapshotHolder PricingSnapshotHolderクラス
+     * @param parallelism           並列度。0以下の場合はCPUのコア数
+     */
+    public BatchEstimateService(EstimateService estimateService, PricingSnapshotHolder pricingSnapshotHolder,
+                                @Value("${estimate.batch.parallelism:0}") int parallelism) {
+        this.estimateService = estimateService;
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 見積もり依頼をまとめて概算見積もりする。
+     *
+     * @param orders 見積もり依頼情報
+     * @return 依頼と同じ順番の概算見積もり結果と処理時間
+     */
+    public BatchEstimateResult getPrices(Stream<UserOrderDto> orders) {
+        return getPrices(orders.collect(Collectors.toList()));
+    }
+
+    /**
+     * 見積もり依頼をまとめて概算見積もりする。
+     *
+     * @param orders 見積もり依頼情報
+     * @return 依頼と同じ順番の概算見積もり結果と処理時間
+     */
+    public BatchEstimateResult getPrices(List<UserOrderDto> orders) {
+        long start = System.nanoTime();
+        UserOrderDto[] orderArray = orders.toArray(new UserOrderDto[0]);
+        double[] postalDistances = resolvePostalDistances(orderArray);
+        PriceBreakdown[] prices = new PriceBreakdown[orderArray.length];
+        String[] errors = new String[orderArray.length];
+
+        pool.invoke(new EstimateTask(pricingSnapshotHolder.get(), orderArray, postalDistances, prices, errors,
+                0, orderArray.length));
+
+        List<BatchEstimateError> errorList = new ArrayList<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                errorList.add(new BatchEstimateError(i, errors[i]));
+            }
+        }
+        BatchEstimateStatistics statistics =
+                new BatchEstimateStatistics(orderArray.length, errorList.size(), System.nanoTime() - start);
+        LOGGER.info("一括見積もりが完了しました。件数={}, 失敗件数={}, 処理時間={}ms, 件数/秒={}",
+                statistics.getOrderCount(), statistics.getFailedCount(),
+                statistics.getElapsedNanos() / 1_000_000, (long) statistics.getOrdersPerSecond());
+        return new BatchEstimateResult(Arrays.asList(prices), errorList, statistics);
+    }
+
+    /**
+     * 郵便番号が入力されている依頼の郵便番号間の距離を求める。
+     * 検索は非同期に行い、同時に検索する件数を{@value #MAX_CONCURRENT_POSTAL_LOOKUPS}件までに抑える。
+     *
+     * @param orders 見積もり依頼情報
+     * @return 依頼と同じ順番の郵便番号間の距離[km]。求められなかった依頼はNaN
+     */
+    private double[] resolvePostalDistances(UserOrderDto[] orders) {
+        double[] distances = new double[orders.length];
+        Arrays.fill(distances, Double.NaN);
+        List<CompletableFuture<Void>> lookups = new ArrayList<>(MAX_CONCURRENT_POSTAL_LOOKUPS);
+        for (int i = 0; i < orders.length; i++) {
+            if (orders[i] == null) {
+                continue;
+            }
+            CompletableFuture<Double> distance = estimateService.getPostalDistanceAsync(orders[i]);
+            if (distance.isDone()) {
+                // 郵便番号が入力されていない場合や、距離を保持している場合は待たない。
+                distances[i] = distance.join();
+                continue;
+            }
+            int index = i;
+            lookups.add(distance.thenAccept(result -> distances[index] = result));
+            if (lookups.size() == MAX_CONCURRENT_POSTAL_LOOKUPS) {
+                CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).join();
+                lookups.clear();
+            }
+        }
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).join();
+        return distances;
+    }
+
+    /**
+     * Fork/Joinプールを停止する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 見積もり依頼の範囲を分割しながら概算見積もりを行うタスク。
+     */
+    private class EstimateTask extends RecursiveAction {
+
+        private final PricingSnapshot snapshot;
+
+        private final UserOrderDto[] orders;
+
+        private final double[] postalDistances;
+
+        private final PriceBreakdown[] prices;
+
+        private final String[] errors;
+
+        private final int from;
+
+        private final int to;
+
+        EstimateTask(PricingSnapshot snapshot, UserOrderDto[] orders, double[] postalDistances,
+                     PriceBreakdown[] prices, String[] errors, int from, int to) {
+            this.snapshot = snapshot;
+            this.orders = orders;
+            this.postalDistances = postalDistances;
+            this.prices = prices;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        prices[i] = estimateService.getPrice(orders[i], snapshot, postalDistances[i]);
+                    } catch (RuntimeException e) {
+                        // 不正な依頼が含まれていても他の依頼の見積もりは続ける。
+                        LOGGER.warn("一括見積もりの依頼を見積もれませんでした。index={}, cause={}", i, e.toString());
+                        errors[i] = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EstimateTask(snapshot, orders, postalDistances, prices, errors, from, middle),
+                    new EstimateTask(snapshot, orders, postalDistances, prices, errors, middle, to));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tiscon.service;
+
+import java.time.Duration;
+
+/**
+ * 外部APIの呼び出しを、失敗が続いた場合に一定時間止めるクラス(サーキットブレーカー)。
+ * <p>
+ * 連続して指定回数失敗すると開き、開いている間は呼び出しを許可しない。
+ * 指定時間が経過すると1回だけ試しに呼び出しを許可し、成功すれば閉じ、失敗すれば再び開く。
+ */
+final class CircuitBreaker {
+
+    /** 開くまでの連続した失敗の回数 */
+    private final int failureThreshold;
+
+    /** 開いてから試しに呼び出すまでの時間[ナノ秒] */
+    private final long openNanos;
+
+    /** 連続した失敗の回数 */
+    private int consecutiveFailures;
+
+    /** 開いた時刻(System.nanoTime())。閉じている場合は使わない */
+    private long openedAt;
+
+    /** 開いているかどうか */
+    private boolean open;
+
+    /** 試しの呼び出しを実行中かどうか */
+    private boolean trial;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param failureThreshold 開くまでの連続した失敗の回数
+     * @param openDuration     開いてから試しに呼び出すまでの時間
+     */
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * 呼び出してよいかどうかを判定する。許可した場合は、結果を{@link #onSuccess()}または{@link #onFailure()}で通知すること。
+     *
+     * @return 呼び出してよい場合はtrue
+     */
+    synchronized boolean tryAcquire() {
+        if (!open) {
+            return true;
+        }
+        if (trial || System.nanoTime() - openedAt < openNanos) {
+            return false;
+        }
+        trial = true;
+        return true;
+    }
+
+    /**
+     * 呼び出しが成功したことを通知する。
+     */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        trial = false;
+    }
+
+    /**
+     * 呼び出しが失敗したことを通知する。
+     */
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (trial || consecutiveFailures >= failureThreshold) {
+            open = true;
+            openedAt = System.nanoTime();
+        }
+        trial = false;
+    }
+
+    /**
+     * 開いているかどうかを取得する。
+     *
+     * @return 開いている場合はtrue
+     */
+    synchronized boolean isOpen() {
+        return open;
+    }
+}
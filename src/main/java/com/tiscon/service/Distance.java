@@ -6,34 +6,38 @@ package com.tiscon.service;
  */
 
 public class Distance {
+
+    /** 地球の赤道半径(キロメートル)。従来の計算と同じ値を使い、距離による料金を変えない */
+    static final double EARTH_RADIUS_KM = 6378.14;
+
     public static void main(String[] args) {
         // 計算サンプル
         System.out.println(getDistance(35.1730990, 136.883466, 35.1855732, 136.899092));
         System.out.println(getDistance(35.1855732, 136.899092, 35.1730990, 136.883466));
+        System.out.println(getDistanceKm(35.1730990, 136.883466, 35.1855732, 136.899092));
     }
 
-    // 球面三角法により、大円距離(メートル)を求める
+    // 大円距離(キロメートル)を整数に切り捨てて求める
     public static Integer getDistance(double lat1, double lng1, double lat2, double lng2) {
-
-        // 緯度経度をラジアンに変換
-        double rlat1 = Math.toRadians(lat1);
-        double rlng1 = Math.toRadians(lng1);
-        double rlat2 = Math.toRadians(lat2);
-        double rlng2 = Math.toRadians(lng2);
-
-        // 2点の中心角(ラジアン)を求める
-        double a =
-                Math.sin(rlat1) * Math.sin(rlat2) +
-                        Math.cos(rlat1) * Math.cos(rlat2) *
-                                Math.cos(rlng1 - rlng2);
-        double rr = Math.acos(a);
-
-        // 地球赤道半径(メートル)
-        double earth_radius = 6378140;
-
-        // 2点間の距離(kmメートル）
-        return (int)(earth_radius * rr / 1000);
+        return (int) getDistanceKm(lat1, lng1, lat2, lng2);
     }
 
-
+    /**
+     * ハバーサイン公式により、2点間の大円距離を求める。
+     * acosを使う球面三角法の式と異なり、近い2点(中心角が0に近い)でも桁落ちしない。
+     *
+     * @param lat1 1点目の緯度
+     * @param lng1 1点目の経度
+     * @param lat2 2点目の緯度
+     * @param lng2 2点目の経度
+     * @return 距離(キロメートル)
+     */
+    public static double getDistanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) * 0.5);
+        double sinLng = Math.sin(Math.toRadians(lng2 - lng1) * 0.5);
+        double h = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        // asin(sqrt(h))と同じ値だが、atan2を使うと丸め誤差でhが1を超えても正しく求まる。
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(h), Math.sqrt(Math.max(0, 1 - h)));
+    }
 }
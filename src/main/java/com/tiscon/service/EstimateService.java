@@ -2,17 +2,29 @@ package com.tiscon.service;
 
 import com.tiscon.code.OptionalServiceType;
 import com.tiscon.code.PackageType;
+import com.tiscon.config.StartupTimer;
+import com.tiscon.dao.CustomerIdAllocator;
 import com.tiscon.dao.EstimateDao;
 import com.tiscon.domain.Customer;
 import com.tiscon.domain.CustomerOptionService;
 import com.tiscon.domain.CustomerPackage;
+import com.tiscon.dto.PriceBreakdown;
 import com.tiscon.dto.UserOrderDto;
-import org.springframework.beans.BeanUtils;
+import com.tiscon.mapper.UserOrderMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 引越し見積もり機能において業務処理を担当するクラス。
@@ -22,18 +34,73 @@ import java.util.List;
 @Service
 public class EstimateService {
 
-    /** 引越しする距離の1 kmあたりの料金[円] */
-    private static final int PRICE_PER_DISTANCE = 100;
-
     private final EstimateDao estimateDAO;
 
+    private final CustomerIdAllocator customerIdAllocator;
+
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    private final PostalDistanceService postalDistanceService;
+
+    private final UserOrderMapper userOrderMapper;
+
+    /** 概算見積もりの各段階(距離・段ボール数・トラック料金・オプション料金・季節係数)の処理時間 */
+    private final Timer distancePhaseTimer;
+
+    private final Timer boxesPhaseTimer;
+
+    private final Timer truckPhaseTimer;
+
+    private final Timer optionPhaseTimer;
+
+    private final Timer seasonPhaseTimer;
+
+    private final StartupTimer startupTimer;
+
+    /** 料金に影響する項目の組み合わせごとの見積もり結果 */
+    private final QuoteMemo quoteMemo;
+
+    /** DBに登録した見積もり依頼の件数 */
+    private final Counter registeredOrderCounter;
+
     /**
      * コンストラクタ。
      *
-     * @param estimateDAO EstimateDaoクラス
+     * @param estimateDAO           EstimateDaoクラス
+     * @param customerIdAllocator   CustomerIdAllocatorクラス
+     * @param pricingSnapshotHolder PricingSnapshotHolderクラス
+     * @param postalDistanceService PostalDistanceServiceクラス
+     * @param userOrderMapper       UserOrderMapperクラス
+     * @param meterRegistry         メトリクスの登録先
+     * @param startupTimer          StartupTimerクラス
+     * @param quoteMemoSize         見積もり結果を保持する最大件数。0の場合は保持しない
      */
-    public EstimateService(EstimateDao estimateDAO) {
+    public EstimateService(EstimateDao estimateDAO, CustomerIdAllocator customerIdAllocator,
+                           PricingSnapshotHolder pricingSnapshotHolder, PostalDistanceService postalDistanceService,
+                           UserOrderMapper userOrderMapper, MeterRegistry meterRegistry, StartupTimer startupTimer,
+                           @Value("${estimate.quote-memo.maximum-size:10000}") long quoteMemoSize) {
         this.estimateDAO = estimateDAO;
+        this.customerIdAllocator = customerIdAllocator;
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.postalDistanceService = postalDistanceService;
+        this.userOrderMapper = userOrderMapper;
+        this.startupTimer = startupTimer;
+        this.quoteMemo = new QuoteMemo(quoteMemoSize, meterRegistry);
+        this.distancePhaseTimer = phaseTimer(meterRegistry, "distance");
+        this.boxesPhaseTimer = phaseTimer(meterRegistry, "boxes");
+        this.truckPhaseTimer = phaseTimer(meterRegistry, "truck");
+        this.optionPhaseTimer = phaseTimer(meterRegistry, "option");
+        this.seasonPhaseTimer = phaseTimer(meterRegistry, "season");
+        this.registeredOrderCounter = Counter.builder("estimate.order.registered")
+                .description("DBに登録した見積もり依頼の件数")
+                .register(meterRegistry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("estimate.price.phase")
+                .description("概算見積もりの段階ごとの処理時間")
+                .tag("phase", phase)
+                .register(meterRegistry);
     }
 
     /**
@@ -41,73 +108,180 @@ public class EstimateService {
      *
      * @param dto 見積もり依頼情報
      */
+    @Timed("estimate.order.register")
     @Transactional
     public void registerOrder(UserOrderDto dto) {
-        Customer customer = new Customer();
-        BeanUtils.copyProperties(dto, customer);
-        estimateDAO.insertCustomer(customer);
+        registerOrders(Collections.singletonList(dto));
+    }
 
-        if (dto.getWashingMachineInstallation()) {
-            CustomerOptionService washingMachine = new CustomerOptionService();
-            washingMachine.setCustomerId(customer.getCustomerId());
-            washingMachine.setServiceId(OptionalServiceType.WASHING_MACHINE.getCode());
-            estimateDAO.insertCustomersOptionService(washingMachine);
+    /**
+     * 複数の見積もり依頼を1つのトランザクションでDBに登録する。
+     * 顧客IDは事前に予約したブロックから払い出し、顧客・オプションサービス・荷物を
+     * すべての依頼の分をテーブルごとにまとめて登録する。
+     *
+     * @param dtos 見積もり依頼情報
+     */
+    @Timed("estimate.order.register")
+    @Transactional
+    public void registerOrders(List<UserOrderDto> dtos) {
+        if (dtos.isEmpty()) {
+            return;
         }
+        int[] customerIds = customerIdAllocator.allocate(dtos.size());
+        List<Customer> customerList = new ArrayList<>(dtos.size());
+        List<CustomerOptionService> optionServiceList = new ArrayList<>();
+        List<CustomerPackage> packageList = new ArrayList<>(dtos.size() * PackageType.values().length);
 
-        List<CustomerPackage> packageList = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            UserOrderDto dto = dtos.get(i);
+            Customer customer = userOrderMapper.toCustomer(dto);
+            customer.setCustomerId(customerIds[i]);
+            customerList.add(customer);
 
-        packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BOX.getCode(), dto.getBox()));
-        packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BED.getCode(), dto.getBed()));
-        packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BICYCLE.getCode(), dto.getBicycle()));
-        packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.WASHING_MACHINE.getCode(), dto.getWashingMachine()));
+            if (dto.getWashingMachineInstallation()) {
+                CustomerOptionService washingMachine = new CustomerOptionService();
+                washingMachine.setCustomerId(customer.getCustomerId());
+                washingMachine.setServiceId(OptionalServiceType.WASHING_MACHINE.getCode());
+                optionServiceList.add(washingMachine);
+            }
+
+            packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BOX.getCode(), dto.getBox()));
+            packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BED.getCode(), dto.getBed()));
+            packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.BICYCLE.getCode(), dto.getBicycle()));
+            packageList.add(new CustomerPackage(customer.getCustomerId(), PackageType.WASHING_MACHINE.getCode(), dto.getWashingMachine()));
+        }
+
+        estimateDAO.batchInsertCustomers(customerList);
+        if (!optionServiceList.isEmpty()) {
+            estimateDAO.batchInsertCustomersOptionService(optionServiceList);
+        }
         estimateDAO.batchInsertCustomerPackage(packageList);
+        registeredOrderCounter.increment(dtos.size());
     }
 
     /**
      * 見積もり依頼に応じた概算見積もりを行う。
+     * 料金に影響する項目が同じ見積もり依頼は、参照データが差し替えられるまで前回の結果を返却する。
      *
      * @param dto 見積もり依頼情報
-     * @return 概算見積もり結果の料金
+     * @return 概算見積もり結果の料金の内訳
      */
-    public Integer[] getPrice(UserOrderDto dto) {
-        double distance = estimateDAO.getDistance(dto.getOldPrefectureId(), dto.getNewPrefectureId());
-        // 小数点以下を切り捨てる
-        int distanceInt = (int) Math.floor(distance);
-
-        // 距離当たりの料金を算出する
-        int priceForDistance = distanceInt * PRICE_PER_DISTANCE;
-        int boxes = getBoxForPackage(dto.getBox(), PackageType.BOX)
-                + getBoxForPackage(dto.getBed(), PackageType.BED)
-                + getBoxForPackage(dto.getBicycle(), PackageType.BICYCLE)
-                + getBoxForPackage(dto.getWashingMachine(), PackageType.WASHING_MACHINE);
+    @Timed("estimate.price")
+    public PriceBreakdown getPrice(UserOrderDto dto) {
+        // 計算の途中で参照データが差し替えられても同じデータで計算するため、スナップショットは最初に1回だけ取得する。
+        PricingSnapshot snapshot = pricingSnapshotHolder.get();
+        long key = QuoteMemo.keyOf(dto, snapshot.getQuoteTable().getSeasonTier(dto.getMovingDate()));
+        PriceBreakdown price = quoteMemo.get(snapshot, key, current -> getPrice(dto, current));
+        startupTimer.onQuote();
+        return price;
+    }
 
-        // 箱に応じてトラックの種類が変わり、それに応じて料金が変わるためトラック料金を算出する。
+    /**
+     * 指定した参照データのスナップショットを用いて、見積もり依頼に応じた概算見積もりを行う。
+     *
+     * @param dto      見積もり依頼情報
+     * @param snapshot 参照データのスナップショット
+     * @return 概算見積もり結果の料金の内訳
+     * @throws ArithmeticException 段ボール数や料金が扱える範囲を超える場合
+     */
+    public PriceBreakdown getPrice(UserOrderDto dto, PricingSnapshot snapshot) {
+        long start = System.nanoTime();
+        double postalDistance = getPostalDistanceAsync(dto).join();
+        return getPrice(dto, snapshot, postalDistance, System.nanoTime() - start);
+    }
+
+    /**
+     * 検索済みの郵便番号間の距離と指定した参照データのスナップショットを用いて、見積もり依頼に応じた概算見積もりを行う。
+     * 郵便番号を検索しないため、呼び出し元のスレッドを待たせない。
+     *
+     * @param dto            見積もり依頼情報
+     * @param snapshot       参照データのスナップショット
+     * @param postalDistance {@link #getPostalDistanceAsync(UserOrderDto)}で求めた郵便番号間の距離[km]
+     * @return 概算見積もり結果の料金の内訳
+     * @throws ArithmeticException 段ボール数や料金が扱える範囲を超える場合
+     */
+    public PriceBreakdown getPrice(UserOrderDto dto, PricingSnapshot snapshot, double postalDistance) {
+        return getPrice(dto, snapshot, postalDistance, 0);
+    }
+
+    /**
+     * 転居元と転居先の郵便番号間の距離を求める。呼び出し元のスレッドは待たせず、距離はFutureで返却する。
+     *
+     * @param dto 見積もり依頼情報
+     * @return 距離[km]。郵便番号が入力されていない場合や住所が見つからない場合はNaN
+     */
+    public CompletableFuture<Double> getPostalDistanceAsync(UserOrderDto dto) {
+        if (ObjectUtils.isEmpty(dto.getOldPostalCode()) || ObjectUtils.isEmpty(dto.getNewPostalCode())) {
+            return CompletableFuture.completedFuture(Double.NaN);
+        }
+        return postalDistanceService.getDistanceAsync(dto.getOldPostalCode(), dto.getNewPostalCode());
+    }
+
+    private PriceBreakdown getPrice(UserOrderDto dto, PricingSnapshot snapshot, double postalDistance,
+                                    long lookupNanos) {
+        // 料金は事前に計算した料金表から求め、段階ごとの処理時間を計測する。
+        QuoteTable quoteTable = snapshot.getQuoteTable();
+        long start = System.nanoTime();
+        int seasonTier = quoteTable.getSeasonTier(dto.getMovingDate());
+        long seasonEnd = System.nanoTime();
+        seasonPhaseTimer.record(seasonEnd - start, TimeUnit.NANOSECONDS);
 
-        int pricePerTruck = estimateDAO.getPricePerTruck(boxes);
+        // 距離当たりの料金を算出する。郵便番号の検索にかかった時間も距離の段階に含める。
+        long priceForDistance = getDistancePrice(dto, quoteTable, seasonTier, postalDistance);
+        long distanceEnd = System.nanoTime();
+        distancePhaseTimer.record(lookupNanos + distanceEnd - seasonEnd, TimeUnit.NANOSECONDS);
+
+        int boxes = Math.addExact(
+                Math.addExact(getBoxForPackage(quoteTable, dto.getBox(), PackageType.BOX),
+                        getBoxForPackage(quoteTable, dto.getBed(), PackageType.BED)),
+                Math.addExact(getBoxForPackage(quoteTable, dto.getBicycle(), PackageType.BICYCLE),
+                        getBoxForPackage(quoteTable, dto.getWashingMachine(), PackageType.WASHING_MACHINE)));
+        long boxesEnd = System.nanoTime();
+        boxesPhaseTimer.record(boxesEnd - distanceEnd, TimeUnit.NANOSECONDS);
+
+        // 箱に応じてトラックの種類が変わり、それに応じて料金が変わるためトラック料金を算出する。
+        long pricePerTruck = quoteTable.getCargoPrice(boxes, seasonTier);
+        long truckEnd = System.nanoTime();
+        truckPhaseTimer.record(truckEnd - boxesEnd, TimeUnit.NANOSECONDS);
 
         // オプションサービスの料金を算出する。
         int priceForOptionalService = 0;
 
         if (dto.getWashingMachineInstallation()) {
-            priceForOptionalService = estimateDAO.getPricePerOptionalService(OptionalServiceType.WASHING_MACHINE.getCode());
+            priceForOptionalService = quoteTable.getPricePerOptionalService(OptionalServiceType.WASHING_MACHINE.getCode());
         }
-        //System.out.print(priceForOptionalService);
-        double seasonCoefficient = estimateDAO.getSeasonCoefficient(dto.getMovingDate());
+        optionPhaseTimer.record(System.nanoTime() - truckEnd, TimeUnit.NANOSECONDS);
 
-        Integer returnInt[] = {(int)((priceForDistance + pricePerTruck) * seasonCoefficient + priceForOptionalService),
-                               (int)(priceForDistance*seasonCoefficient),(int)(pricePerTruck*seasonCoefficient),priceForOptionalService};
-        return returnInt;
-        //return (int)((priceForDistance + pricePerTruck) * seasonCoefficient + priceForOptionalService);
+        return PriceBreakdown.ofMilliYen(priceForDistance, pricePerTruck, priceForOptionalService);
+    }
+
+    /**
+     * 引越し距離に応じた料金を算出する。
+     * 郵便番号間の距離が求められた場合はその距離を用い、
+     * 郵便番号が入力されていない場合や住所が見つからない場合は料金表の都道府県間の料金を用いる。
+     *
+     * @param dto            見積もり依頼情報
+     * @param quoteTable     料金表
+     * @param seasonTier     季節係数の区分
+     * @param postalDistance 郵便番号間の距離[km]。求められなかった場合はNaN
+     * @return 季節係数を掛けた料金[1/1000円]
+     */
+    private long getDistancePrice(UserOrderDto dto, QuoteTable quoteTable, int seasonTier, double postalDistance) {
+        if (!Double.isNaN(postalDistance)) {
+            return quoteTable.getDistancePrice(postalDistance, seasonTier);
+        }
+        return quoteTable.getDistancePrice(dto.getOldPrefectureId(), dto.getNewPrefectureId(), seasonTier);
     }
 
     /**
      * 荷物当たりの段ボール数を算出する。
      *
+     * @param quoteTable 料金表
      * @param packageNum 荷物数
      * @param type       荷物の種類
      * @return 段ボール数
      */
-    private int getBoxForPackage(int packageNum, PackageType type) {
-        return packageNum * estimateDAO.getBoxPerPackage(type.getCode());
+    private int getBoxForPackage(QuoteTable quoteTable, int packageNum, PackageType type) {
+        return Math.multiplyExact(packageNum, quoteTable.getBoxPerPackage(type.getCode()));
     }
 }
\ No newline at end of file
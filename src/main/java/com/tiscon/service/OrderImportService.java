@@ -0,0 +1,507 @@
+package com.tiscon.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tiscon.dto.OrderImportResult;
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.form.UserOrderForm;
+import com.tiscon.mapper.UserOrderMapper;
+import com.tiscon.validator.UserOrderFormValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * コールセンターや提携先から受け取った申し込みのファイル(CSVまたはNDJSON)をDBに一括で取り込むクラス。
+ * <p>
+ * ファイルは先頭から1行ずつ読み込み、一定件数(チャンク)ごとに処理するため、ファイルの大きさによらずメモリの使用量は一定となる。
+ * チャンク内の申し込みは専用のFork/Joinプールで並列に精査し、精査を通った申し込みは1つのトランザクションで
+ * テーブルごとに一括登録してコミットする。DBへの登録は専用のスレッドで行い、その間に次のチャンクを読み込んで精査する。
+ * 登録待ちのチャンクは1つまでとし、登録が追いつかない場合は読み込みを待たせる。
+ * <p>
+ * 精査エラーやDBの制約違反で登録しなかった申し込みは、行番号・理由・元の行をNDJSONで別ファイルに書き出す。
+ * DBに接続できないなどで取り込みを中断した場合、コミット済みのチャンクは登録されたままとなる。
+ * <p>
+ * CSVは1行目を見出しとし、列名は入力フォーム({@link UserOrderForm})のプロパティ名とする(列の順番は問わない)。
+ * NDJSONは1行に入力フォームと同じプロパティを持つJSONオブジェクトを1つ書いたものとする。
+ */
+@Service
+public class OrderImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderImportService.class);
+
+    private static final ObjectReader ORDER_READER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(UserOrderForm.class);
+
+    private static final ObjectWriter REJECTED_WRITER = new ObjectMapper().writerFor(Map.class);
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    /** CUSTOMERテーブルの列の長さ */
+    private static final int MAX_CUSTOMER_NAME_LENGTH = 60;
+
+    private static final int MAX_TEL_LENGTH = 11;
+
+    private static final int MAX_EMAIL_LENGTH = 256;
+
+    private static final int MAX_ADDRESS_LENGTH = 200;
+
+    /** CSVの列名と、入力フォームへ値を設定する処理 */
+    private static final Map<String, BiConsumer<UserOrderForm, String>> CSV_COLUMNS = csvColumns();
+
+    /** 申し込みのファイルの形式 */
+    public enum Format {
+
+        /** 1行目を見出しとするCSV */
+        CSV,
+
+        /** 1行に1件のJSONオブジェクト */
+        NDJSON;
+
+        /**
+         * ファイル名の拡張子から形式を判定する。.ndjson・.jsonlの場合はNDJSON、それ以外はCSVとする。
+         *
+         * @param fileName ファイル名
+         * @return 形式
+         */
+        public static Format of(String fileName) {
+            String lower = fileName.toLowerCase();
+            return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") ? NDJSON : CSV;
+        }
+    }
+
+    private final EstimateService estimateService;
+
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    private final UserOrderFormValidator userOrderFormValidator;
+
+    private final UserOrderMapper userOrderMapper;
+
+    /** 1回のトランザクションで登録する件数 */
+    private final int batchSize;
+
+    /** 登録しなかった申し込みのファイルを置くディレクトリ */
+    private final Path rejectedDirectory;
+
+    /** 精査用のFork/Joinプール */
+    private final ForkJoinPool pool;
+
+    /** DBへの登録用のスレッド */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-import-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 登録しなかった申し込みの件数 */
+    private final Counter rejectedCounter;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param estimateService        EstimateServiceクラス
+     * @param pricingSnapshotHolder  PricingSnapshotHolderクラス
+     * @param userOrderFormValidator UserOrderFormValidatorクラス
+     * @param userOrderMapper        UserOrderMapperクラス
+     * @param meterRegistry          メトリクスの登録先
+     * @param batchSize              1回のトランザクションで登録する件数
+     * @param rejectedDirectory      登録しなかった申し込みのファイルを置くディレクトリ
+     * @param parallelism            精査の並列度。0以下の場合はCPUのコア数
+     */
+    public OrderImportService(EstimateService estimateService, PricingSnapshotHolder pricingSnapshotHolder,
+                              UserOrderFormValidator userOrderFormValidator, UserOrderMapper userOrderMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${estimate.order-import.batch-size:5000}") int batchSize,
+                              @Value("${estimate.order-import.rejected-directory:./target/import}") String rejectedDirectory,
+                              @Value("${estimate.order-import.parallelism:0}") int parallelism) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("一括取り込みの件数が不正です。batchSize=" + batchSize);
+        }
+        this.estimateService = estimateService;
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.userOrderFormValidator = userOrderFormValidator;
+        this.userOrderMapper = userOrderMapper;
+        this.batchSize = batchSize;
+        this.rejectedDirectory = Paths.get(rejectedDirectory);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.rejectedCounter = Counter.builder("estimate.order.import.rejected")
+                .description("一括取り込みで登録しなかった申し込みの件数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申し込みのファイルを取り込む。登録しなかった申し込みは、取り込みごとに新しく作成するファイルに書き出す。
+     *
+     * @param in     申し込みのファイルの内容(UTF-8)
+     * @param format ファイルの形式
+     * @return 処理件数と処理時間
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public OrderImportResult importOrders(InputStream in, Format format) throws IOException {
+        Files.createDirectories(rejectedDirectory);
+        Path rejectedFile = rejectedDirectory.resolve(
+                "rejected-orders-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".ndjson");
+        return importOrders(in, format, rejectedFile);
+    }
+
+    /**
+     * 申し込みのファイルを取り込む。
+     *
+     * @param in           申し込みのファイルの内容(UTF-8)
+     * @param format       ファイルの形式
+     * @param rejectedFile 登録しなかった申し込みを書き出すファイル
+     * @return 処理件数と処理時間
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public OrderImportResult importOrders(InputStream in, Format format, Path rejectedFile) throws IOException {
+        long start = System.nanoTime();
+        long readCount = 0;
+        AtomicLong importedCount = new AtomicLong();
+        CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+             RejectedOrders rejected = new RejectedOrders(rejectedFile)) {
+            RowParser parser = format == Format.CSV ? csvParser(reader.readLine()) : NdjsonParser.INSTANCE;
+            try {
+                long lineNumber = format == Format.CSV ? 1 : 0;
+                List<Row> chunk = new ArrayList<>(batchSize);
+                for (String line; (line = reader.readLine()) != null; ) {
+                    lineNumber++;
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    chunk.add(new Row(lineNumber, line));
+                    readCount++;
+                    if (chunk.size() == batchSize) {
+                        pendingWrite = submit(parser, chunk, pendingWrite, rejected, importedCount);
+                        chunk = new ArrayList<>(batchSize);
+                    }
+                }
+                pendingWrite = submit(parser, chunk, pendingWrite, rejected, importedCount);
+                pendingWrite.join();
+            } catch (IOException | RuntimeException e) {
+                // 登録中のチャンクが終わるまで、除外した申し込みのファイルを閉じない
+                pendingWrite.exceptionally(t -> null).join();
+                LOGGER.error("申し込みの一括取り込みを中断しました。登録件数={}, 除外件数={}", importedCount.get(), rejected.count);
+                throw unwrap(e);
+            }
+            OrderImportResult result = new OrderImportResult(readCount, importedCount.get(), rejected.count,
+                    rejectedFile.toString(), System.nanoTime() - start);
+            LOGGER.info("申し込みの一括取り込みが完了しました。件数={}, 登録件数={}, 除外件数={}, 処理時間={}ms, 件数/秒={}",
+                    result.getReadCount(), result.getImportedCount(), result.getRejectedCount(),
+                    result.getElapsedNanos() / 1_000_000, (long) result.getOrdersPerSecond());
+            return result;
+        }
+    }
+
+    /**
+     * 登録用のスレッドで発生した例外を取り出す。
+     */
+    private static IOException unwrap(Exception e) throws IOException {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+    }
+
+    /**
+     * 精査用のFork/Joinプールと登録用のスレッドを停止する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+        writer.shutdown();
+    }
+
+    /**
+     * チャンクを並列に精査し、前のチャンクの登録が済んでから登録を開始する。
+     *
+     * @return このチャンクの登録の完了
+     */
+    private CompletableFuture<Void> submit(RowParser parser, List<Row> chunk, CompletableFuture<Void> pendingWrite,
+                                           RejectedOrders rejected, AtomicLong importedCount) throws IOException {
+        PricingSnapshot snapshot = pricingSnapshotHolder.get();
+        List<Row> validated;
+        try {
+            validated = pool.submit(() -> chunk.parallelStream()
+                    .map(row -> validate(parser, snapshot, row))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("申し込みの精査中に割り込まれました。", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("申し込みを精査できませんでした。", e.getCause());
+        }
+        List<Row> accepted = new ArrayList<>(validated.size());
+        for (Row row : validated) {
+            if (row.reasons.isEmpty()) {
+                accepted.add(row);
+            } else {
+                rejected.write(row);
+            }
+        }
+        // 登録待ちのチャンクを1つまでに抑える
+        pendingWrite.join();
+        return CompletableFuture.runAsync(() -> write(accepted, rejected, importedCount), writer);
+    }
+
+    private Row validate(RowParser parser, PricingSnapshot snapshot, Row row) {
+        UserOrderForm form;
+        try {
+            form = parser.parse(row.line);
+        } catch (JsonProcessingException e) {
+            row.reasons.add(e.getOriginalMessage());
+            return row;
+        } catch (IllegalArgumentException e) {
+            row.reasons.add(e.getMessage());
+            return row;
+        }
+        Errors errors = new BeanPropertyBindingResult(form, "userOrderForm");
+        userOrderFormValidator.validate(form, errors);
+        for (FieldError error : errors.getFieldErrors()) {
+            row.reasons.add(error.getField() + ": " + error.getDefaultMessage());
+        }
+        Map<String, String> prefectures = snapshot.getPrefectures().getNames();
+        requireKnownPrefecture(row, prefectures, "oldPrefectureId", form.getOldPrefectureId());
+        requireKnownPrefecture(row, prefectures, "newPrefectureId", form.getNewPrefectureId());
+        requireMaxLength(row, "customerName", form.getCustomerName(), MAX_CUSTOMER_NAME_LENGTH);
+        requireMaxLength(row, "tel", form.getTel(), MAX_TEL_LENGTH);
+        requireMaxLength(row, "email", form.getEmail(), MAX_EMAIL_LENGTH);
+        requireMaxLength(row, "oldAddress", form.getOldAddress(), MAX_ADDRESS_LENGTH);
+        requireMaxLength(row, "newAddress", form.getNewAddress(), MAX_ADDRESS_LENGTH);
+        if (!row.reasons.isEmpty()) {
+            return row;
+        }
+        try {
+            UserOrderDto dto = userOrderMapper.toDto(form);
+            // 個数が数値の範囲を超えていないことを確かめる
+            dto.getBox();
+            dto.getBed();
+            dto.getBicycle();
+            dto.getWashingMachine();
+            row.order = dto;
+        } catch (RuntimeException e) {
+            row.reasons.add(e.toString());
+        }
+        return row;
+    }
+
+    private static void requireKnownPrefecture(Row row, Map<String, String> prefectures, String field, String value) {
+        if (value != null && !value.trim().isEmpty() && !prefectures.containsKey(value)) {
+            row.reasons.add(field + ": 登録されていない都道府県です");
+        }
+    }
+
+    private static void requireMaxLength(Row row, String field, String value, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            row.reasons.add(field + ": " + maxLength + "文字以内で入力してください");
+        }
+    }
+
+    /**
+     * 精査を通った申し込みを1つのトランザクションで登録する。
+     * 制約違反で一括で登録できない場合は、1件ずつ登録し直して登録できない申し込みだけを除外する。
+     */
+    private void write(List<Row> accepted, RejectedOrders rejected, AtomicLong importedCount) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            estimateService.registerOrders(accepted.stream().map(row -> row.order).collect(Collectors.toList()));
+            importedCount.addAndGet(accepted.size());
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.warn("一括で登録できなかったため1件ずつ登録します。行番号={}～{}",
+                    accepted.get(0).lineNumber, accepted.get(accepted.size() - 1).lineNumber);
+            for (Row row : accepted) {
+                try {
+                    estimateService.registerOrder(row.order);
+                    importedCount.incrementAndGet();
+                } catch (DataIntegrityViolationException violation) {
+                    row.reasons.add(violation.getMostSpecificCause().getMessage());
+                    try {
+                        rejected.write(row);
+                    } catch (IOException io) {
+                        throw new UncheckedIOException(io);
+                    }
+                }
+            }
+        }
+    }
+
+    private static RowParser csvParser(String header) {
+        if (header == null) {
+            return line -> {
+                throw new IllegalArgumentException("見出しがありません");
+            };
+        }
+        String[] names = ReferenceDataCsvReader.split(header);
+        List<BiConsumer<UserOrderForm, String>> setters = new ArrayList<>(names.length);
+        for (String name : names) {
+            BiConsumer<UserOrderForm, String> setter = CSV_COLUMNS.get(name);
+            if (setter == null) {
+                throw new IllegalArgumentException("CSVの見出しが不正です。列名=" + name);
+            }
+            setters.add(setter);
+        }
+        return line -> {
+            String[] values = ReferenceDataCsvReader.split(line);
+            if (values.length != setters.size()) {
+                throw new IllegalArgumentException(setters.size() + "列ではありません");
+            }
+            UserOrderForm form = new UserOrderForm();
+            for (int i = 0; i < values.length; i++) {
+                setters.get(i).accept(form, values[i]);
+            }
+            return form;
+        };
+    }
+
+    private static Map<String, BiConsumer<UserOrderForm, String>> csvColumns() {
+        Map<String, BiConsumer<UserOrderForm, String>> columns = new LinkedHashMap<>();
+        columns.put("customerName", UserOrderForm::setCustomerName);
+        columns.put("tel", UserOrderForm::setTel);
+        columns.put("email", UserOrderForm::setEmail);
+        columns.put("oldPostalCode", UserOrderForm::setOldPostalCode);
+        columns.put("oldPrefectureId", UserOrderForm::setOldPrefectureId);
+        columns.put("oldAddress", UserOrderForm::setOldAddress);
+        columns.put("newPostalCode", UserOrderForm::setNewPostalCode);
+        columns.put("newPrefectureId", UserOrderForm::setNewPrefectureId);
+        columns.put("newAddress", UserOrderForm::setNewAddress);
+        columns.put("box", UserOrderForm::setBox);
+        columns.put("bed", UserOrderForm::setBed);
+        columns.put("bicycle", UserOrderForm::setBicycle);
+        columns.put("washingMachine", UserOrderForm::setWashingMachine);
+        columns.put("washingMachineInstallation", (form, value) -> form.setWashingMachineInstallation(toBoolean(value)));
+        columns.put("movingDate", UserOrderForm::setMovingDate);
+        return columns;
+    }
+
+    private static boolean toBoolean(String value) {
+        switch (value.toLowerCase()) {
+            case "true":
+            case "1":
+                return true;
+            case "false":
+            case "0":
+            case "":
+                return false;
+            default:
+                throw new IllegalArgumentException("washingMachineInstallation: true・false・1・0のいずれかを入力してください");
+        }
+    }
+
+    /**
+     * 1行を入力フォームに変換する処理。
+     */
+    private interface RowParser {
+
+        UserOrderForm parse(String line) throws JsonProcessingException;
+    }
+
+    private enum NdjsonParser implements RowParser {
+
+        INSTANCE;
+
+        @Override
+        public UserOrderForm parse(String line) throws JsonProcessingException {
+            return ORDER_READER.readValue(line);
+        }
+    }
+
+    /**
+     * ファイルの1行と、その精査結果。
+     */
+    private static final class Row {
+
+        private final long lineNumber;
+
+        private final String line;
+
+        /** 登録しない理由。精査を通った場合は空 */
+        private final List<String> reasons = new ArrayList<>(1);
+
+        /** 精査を通った申し込み */
+        private UserOrderDto order;
+
+        private Row(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * 登録しなかった申し込みをNDJSON(行番号・理由・元の行)で書き出すクラス。
+     * 精査するスレッドと登録用のスレッドの両方から書き出す。
+     */
+    private final class RejectedOrders implements AutoCloseable {
+
+        private final Writer out;
+
+        private long count;
+
+        private RejectedOrders(Path file) throws IOException {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        }
+
+        private synchronized void write(Row row) throws IOException {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("line", row.lineNumber);
+            record.put("reasons", row.reasons);
+            record.put("record", row.line);
+            out.write(REJECTED_WRITER.writeValueAsString(record));
+            out.write('\n');
+            count++;
+            rejectedCounter.increment();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.tiscon.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tiscon.dto.UserOrderDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 申し込みを追記型のファイルに記録するジャーナル。
+ * <p>
+ * 申し込みは1件ごとに連番を付けてファイルの末尾に追記し、ディスクへの書き込みを完了してから呼び出し元に返す。
+ * DBへの登録が済んだ連番はDB側に記録しておき、起動時にはそれより後の申し込みを読み直して登録し直す。
+ * レコードの形式は次のとおり(数値はすべてビッグエンディアン)。
+ * <pre>
+ * 本文の長さ(int), 連番(long), 本文(申し込みのJSON), CRC32(連番と本文に対するint)
+ * </pre>
+ * 書き込み途中で停止した場合など、末尾に壊れたレコードがある場合はそのレコード以降を切り捨てる。
+ */
+public final class OrderJournal implements Closeable {
+
+    /** ジャーナルのファイル名 */
+    static final String FILE_NAME = "orders.journal";
+
+    /** レコードの本文以外のバイト数 */
+    private static final int OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    /** 本文の最大バイト数。これより長いレコードは壊れているものとみなす */
+    private static final int MAX_BODY_LENGTH = 1 << 20;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static final ObjectWriter WRITER = MAPPER.writerFor(UserOrderDto.class);
+
+    private static final ObjectReader READER = MAPPER.readerFor(UserOrderDto.class);
+
+    private final FileChannel channel;
+
+    /** 起動時に読み直した、DBへ未登録の申し込み */
+    private final List<Entry> pending;
+
+    /** 最後に追記した申し込みの連番 */
+    private long lastSequence;
+
+    private OrderJournal(FileChannel channel, List<Entry> pending, long lastSequence) {
+        this.channel = channel;
+        this.pending = Collections.unmodifiableList(pending);
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * ジャーナルを開く。
+     *
+     * @param directory         ジャーナルを置くディレクトリ
+     * @param committedSequence DBへの登録が済んだ最後の連番
+     * @return ジャーナル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public static OrderJournal open(Path directory, long committedSequence) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // 複数のプロセスから同じジャーナルに追記しないよう、開いている間はロックしておく。
+            if (channel.tryLock() == null) {
+                throw new IOException("ジャーナルは他のプロセスが使用中です。directory=" + directory);
+            }
+            List<Entry> pending = new ArrayList<>();
+            long lastSequence = committedSequence;
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+            while (true) {
+                header.clear();
+                if (!readFully(channel, header, position)) {
+                    break;
+                }
+                int length = header.getInt(0);
+                long sequence = header.getLong(Integer.BYTES);
+                if (length < 0 || length > MAX_BODY_LENGTH) {
+                    break;
+                }
+                ByteBuffer rest = ByteBuffer.allocate(length + Integer.BYTES);
+                if (!readFully(channel, rest, position + header.capacity())) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                rest.get(body);
+                if (checksum(sequence, body) != rest.getInt(length)) {
+                    break;
+                }
+                if (sequence > committedSequence) {
+                    pending.add(new Entry(sequence, READER.readValue(body)));
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                position += OVERHEAD + length;
+            }
+            // 壊れたレコード以降は切り捨て、次の追記位置を末尾に合わせる。
+            channel.truncate(position);
+            channel.position(position);
+            return new OrderJournal(channel, pending, lastSequence);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 起動時に読み直した、DBへ未登録の申し込みを取得する。
+     *
+     * @return 連番の昇順の申し込み
+     */
+    public List<Entry> getPending() {
+        return pending;
+    }
+
+    /**
+     * 申し込みを追記する。ディスクへの書き込みが完了してから返却する。
+     *
+     * @param order 申し込み
+     * @return 連番を付けた申し込み
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public synchronized Entry append(UserOrderDto order) throws IOException {
+        byte[] body = WRITER.writeValueAsBytes(order);
+        long sequence = lastSequence + 1;
+        ByteBuffer record = ByteBuffer.allocate(OVERHEAD + body.length);
+        record.putInt(body.length).putLong(sequence).put(body).putInt(checksum(sequence, body));
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        lastSequence = sequence;
+        return new Entry(sequence, order);
+    }
+
+    /**
+     * DBへの登録がすべて済んでいる場合はファイルを空にする。
+     *
+     * @param committedSequence DBへの登録が済んだ最後の連番
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public synchronized void truncateIfCommitted(long committedSequence) throws IOException {
+        if (committedSequence >= lastSequence && channel.size() > 0) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private static int checksum(long sequence, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 連番を付けた申し込み。
+     */
+    public static final class Entry {
+
+        private final long sequence;
+
+        private final UserOrderDto order;
+
+        Entry(long sequence, UserOrderDto order) {
+            this.sequence = sequence;
+            this.order = order;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public UserOrderDto getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.tiscon.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tiscon.dao.EstimateDao;
+import com.tiscon.dto.UserOrderDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 申し込みをジャーナルに記録してすぐに受け付け、DBへの登録はバックグラウンドでまとめて行うクラス。
+ * <p>
+ * 申し込みはジャーナル({@link OrderJournal})への書き込みが完了した時点で受け付け済みとする。
+ * 登録用のスレッドは溜まった申し込みを最大件数までまとめ、1つのトランザクションでテーブルごとに一括登録する。
+ * 登録が済んだ連番はDBに同じトランザクションで記録するため、停止・再起動しても二重に登録されない。
+ * 起動時に未登録の申し込みを登録し直すため、遅延初期化の設定でも起動時に生成する。
+ */
+@Service
+@Lazy(false)
+public class OrderWriteBehindService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderWriteBehindService.class);
+
+    /** ジャーナルID(ジャーナルは1つのみ) */
+    private static final int JOURNAL_ID = 1;
+
+    /** 登録できなかった申し込みを書き出すファイル名 */
+    private static final String REJECTED_FILE_NAME = "rejected-orders.ndjson";
+
+    private static final ObjectWriter REJECTED_WRITER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .writerFor(UserOrderDto.class);
+
+    private final EstimateService estimateService;
+
+    private final EstimateDao estimateDAO;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** バックグラウンドで登録するかどうか。falseの場合は呼び出したスレッドで登録する */
+    private final boolean enabled;
+
+    /** ジャーナルを置くディレクトリ */
+    private final Path directory;
+
+    /** 1回のトランザクションで登録する最大件数 */
+    private final int batchSize;
+
+    /** DBのエラーで登録できなかった場合に再試行するまでの待ち時間 */
+    private final Duration retryInterval;
+
+    /** DBへ未登録の申し込み(連番の昇順) */
+    private final BlockingQueue<OrderJournal.Entry> queue = new LinkedBlockingQueue<>();
+
+    /** ジャーナルへの追記と登録待ちへの追加を、連番の順に行うためのロック */
+    private final Object appendLock = new Object();
+
+    private OrderJournal journal;
+
+    /** DBへの登録が済んだ最後の連番。登録用のスレッドのみが参照・更新する */
+    private long committedSequence;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param estimateService    EstimateServiceクラス
+     * @param estimateDAO        EstimateDaoクラス
+     * @param transactionManager トランザクションマネージャー
+     * @param enabled            バックグラウンドで登録するかどうか
+     * @param directory          ジャーナルを置くディレクトリ
+     * @param batchSize          1回のトランザクションで登録する最大件数
+     * @param retryInterval      DBのエラーで登録できなかった場合に再試行するまでの待ち時間
+     */
+    public OrderWriteBehindService(EstimateService estimateService, EstimateDao estimateDAO,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${estimate.order.write-behind.enabled:true}") boolean enabled,
+                                   @Value("${estimate.order.write-behind.directory:./target/journal}") String directory,
+                                   @Value("${estimate.order.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${estimate.order.write-behind.retry-interval:1s}") Duration retryInterval) {
+        this.estimateService = estimateService;
+        this.estimateDAO = estimateDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.batchSize = batchSize;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * ジャーナルを開き、DBへ未登録の申し込みを登録待ちに戻してから登録用のスレッドを開始する。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        committedSequence = estimateDAO.getOrderJournalCheckpoint(JOURNAL_ID);
+        journal = OrderJournal.open(directory, committedSequence);
+        if (!journal.getPending().isEmpty()) {
+            LOGGER.info("未登録の申し込みをジャーナルから読み直しました。件数={}", journal.getPending().size());
+            queue.addAll(journal.getPending());
+        }
+        running = true;
+        writer = new Thread(this::run, "order-writer");
+        writer.start();
+    }
+
+    /**
+     * 申し込みを受け付ける。
+     * ジャーナルへの書き込みが完了した時点で返却し、DBへの登録はバックグラウンドで行う。
+     *
+     * @param dto 見積もり依頼情報
+     */
+    public void submit(UserOrderDto dto) {
+        if (!enabled) {
+            estimateService.registerOrder(dto);
+            return;
+        }
+        try {
+            // 追記と追加を同じロックの中で行い、登録待ちの申し込みを連番の昇順に保つ。
+            // 順番が入れ替わると、後の連番の登録が済んだ時点でジャーナルが切り詰められ、前の連番が失われる。
+            synchronized (appendLock) {
+                queue.add(journal.append(dto));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("申し込みをジャーナルに記録できませんでした。", e);
+        }
+    }
+
+    /**
+     * 登録用のスレッドを停止する。登録待ちの申し込みをすべて登録してから停止する。
+     *
+     * @throws InterruptedException 停止を待つ間に割り込まれた場合
+     * @throws IOException          入出力エラーが発生した場合
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.join();
+        journal.close();
+    }
+
+    private void run() {
+        List<OrderJournal.Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                if (queue.isEmpty()) {
+                    journal.truncateIfCommitted(committedSequence);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOGGER.warn("ジャーナルを切り詰められませんでした。", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 申し込みをまとめて登録する。
+     * 不正な申し込みが含まれていて一括で登録できない場合は、1件ずつ登録し直して不正な申し込みだけを除外する。
+     * DBに接続できない場合など、時間をおけば登録できる失敗の場合は、登録できるまで待ってから再試行する。
+     *
+     * @param batch 申し込み(連番の昇順)
+     * @throws InterruptedException 再試行を待つ間に割り込まれた場合、または停止中に登録できなかった場合
+     */
+    private void write(List<OrderJournal.Entry> batch) throws InterruptedException {
+        while (true) {
+            try {
+                try {
+                    register(batch);
+                } catch (RuntimeException e) {
+                    if (isTransient(e)) {
+                        throw e;
+                    }
+                    for (OrderJournal.Entry entry : batch) {
+                        if (entry.getSequence() <= committedSequence) {
+                            // 再試行の前に1件ずつ登録済みの申し込み
+                            continue;
+                        }
+                        try {
+                            register(List.of(entry));
+                        } catch (RuntimeException rejected) {
+                            if (isTransient(rejected)) {
+                                throw rejected;
+                            }
+                            reject(entry, rejected);
+                        }
+                    }
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    // 未登録の申し込みはジャーナルに残っているため、次回の起動時に登録する。
+                    LOGGER.error("停止中のため申し込みの登録を中断しました。件数={}", batch.size(), e);
+                    throw new InterruptedException();
+                }
+                LOGGER.error("申し込みをDBに登録できませんでした。{}後に再試行します。件数={}", retryInterval, batch.size(), e);
+                Thread.sleep(retryInterval.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 時間をおけば登録できる可能性がある失敗(DBに接続できない、ロックを取得できないなど)かどうかを判定する。
+     * それ以外の失敗(制約違反や申し込みの内容による例外)は、再試行しても同じ結果になるため除外する。
+     *
+     * @param e 登録時に発生した例外
+     * @return 再試行する場合はtrue
+     */
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void register(List<OrderJournal.Entry> entries) {
+        List<OrderJournal.Entry> uncommitted = entries.stream()
+                .filter(entry -> entry.getSequence() > committedSequence)
+                .collect(Collectors.toList());
+        if (uncommitted.isEmpty()) {
+            return;
+        }
+        List<UserOrderDto> orders = uncommitted.stream()
+                .map(OrderJournal.Entry::getOrder)
+                .collect(Collectors.toList());
+        // 登録した申し込みのうち最大の連番を記録する。
+        long lastSequence = uncommitted.stream().mapToLong(OrderJournal.Entry::getSequence).max().getAsLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            estimateService.registerOrders(orders);
+            estimateDAO.updateOrderJournalCheckpoint(JOURNAL_ID, lastSequence);
+        });
+        committedSequence = lastSequence;
+    }
+
+    /**
+     * 登録できない申し込みをファイルに書き出し、登録済みとして連番を進める。
+     *
+     * @param entry 申し込み
+     * @param cause 登録できなかった原因
+     */
+    private void reject(OrderJournal.Entry entry, RuntimeException cause) {
+        LOGGER.error("申し込みを登録できないため除外します。連番={}", entry.getSequence(), cause);
+        try (Writer out = Files.newBufferedWriter(directory.resolve(REJECTED_FILE_NAME), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(REJECTED_WRITER.writeValueAsString(entry.getOrder()));
+            out.write('\n');
+        } catch (IOException e) {
+            LOGGER.error("除外した申し込みを書き出せませんでした。連番={}", entry.getSequence(), e);
+        }
+        transactionTemplate.executeWithoutResult(
+                status -> estimateDAO.updateOrderJournalCheckpoint(JOURNAL_ID, entry.getSequence()));
+        committedSequence = entry.getSequence();
+    }
+}
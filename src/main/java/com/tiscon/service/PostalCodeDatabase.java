@@ -0,0 +1,230 @@
+package com.tiscon.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PostalCodeDatabaseCompiler} で作成した郵便番号データベースを読み込むクラス。
+ * <p>
+ * ファイルはメモリマップで読み込み、郵便番号(7桁の数値)の昇順に並んだレコードを二分探索する。
+ * ファイルの形式は次のとおり(数値はすべてビッグエンディアン)。
+ * <pre>
+ * ヘッダー    : マジックナンバー, バージョン, レコード数, 文字列数 (各int)
+ * レコード    : 郵便番号(int), 緯度(float), 経度(float),
+ *               都道府県名, 市区町村名, 市区町村名カナ, 町域名, 町域名カナ (各文字列番号int)
+ * 文字列位置  : 文字列ごとの開始位置(int) × (文字列数 + 1)
+ * 文字列      : UTF-8のバイト列
+ * </pre>
+ * 文字列は初めて参照した時に1度だけ変換して共有するため、検索のたびに文字列を生成しない。
+ */
+public final class PostalCodeDatabase {
+
+    /** ファイルの先頭に書き込むマジックナンバー("PCDB") */
+    static final int MAGIC = 0x50434442;
+
+    /** ファイル形式のバージョン */
+    static final int VERSION = 1;
+
+    /** ヘッダーのバイト数 */
+    private static final int HEADER_SIZE = 16;
+
+    /** 1レコードのバイト数 */
+    private static final int RECORD_SIZE = 32;
+
+    /** メモリマップしたファイル */
+    private final ByteBuffer buffer;
+
+    /** レコード数 */
+    private final int recordCount;
+
+    /** 文字列位置の開始位置 */
+    private final int stringIndexOffset;
+
+    /** 文字列の開始位置 */
+    private final int stringDataOffset;
+
+    /** 変換済みの文字列。添字は文字列番号 */
+    private final String[] strings;
+
+    private PostalCodeDatabase(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("郵便番号データベースの形式が不正です。");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("郵便番号データベースのバージョンが不正です。version=" + buffer.getInt(4));
+        }
+        int recordCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        // 途中で切れたファイルや壊れたファイルは、検索時ではなく開いた時点でエラーにする。
+        long stringIndexOffset = HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+        long stringDataOffset = stringIndexOffset + ((long) stringCount + 1) * Integer.BYTES;
+        if (recordCount < 0 || stringCount < 0 || stringDataOffset > buffer.capacity()) {
+            throw new IllegalArgumentException("郵便番号データベースのサイズが不正です。recordCount=" + recordCount
+                    + ", stringCount=" + stringCount + ", size=" + buffer.capacity());
+        }
+        this.buffer = buffer;
+        this.recordCount = recordCount;
+        this.stringIndexOffset = (int) stringIndexOffset;
+        this.stringDataOffset = (int) stringDataOffset;
+        this.strings = new String[stringCount];
+        validateStringIndex(stringCount);
+    }
+
+    /**
+     * 文字列位置が先頭から昇順に並び、最後の文字列がファイルの終端で終わることを確かめる。
+     *
+     * @param stringCount 文字列数
+     */
+    private void validateStringIndex(int stringCount) {
+        int previous = 0;
+        for (int i = 0; i <= stringCount; i++) {
+            int offset = buffer.getInt(stringIndexOffset + i * Integer.BYTES);
+            if (i == 0 ? offset != 0 : offset < previous) {
+                throw new IllegalArgumentException("郵便番号データベースの文字列位置が不正です。index=" + i + ", offset=" + offset);
+            }
+            previous = offset;
+        }
+        if (stringDataOffset + (long) previous != buffer.capacity()) {
+            throw new IllegalArgumentException("郵便番号データベースの文字列の長さが不正です。length=" + previous
+                    + ", size=" + buffer.capacity());
+        }
+    }
+
+    /**
+     * 郵便番号データベースを開く。ファイルはメモリマップするため、レコードと文字列は検索時に必要な部分だけ読み込まれる。
+     * 開く時にはヘッダーと文字列位置だけを読み、ファイルのサイズと矛盾しないことを確かめる。
+     *
+     * @param path 郵便番号データベースのファイル
+     * @return 郵便番号データベース
+     * @throws IOException              入出力エラーが発生した場合
+     * @throws IllegalArgumentException ファイルの形式が不正な場合や、ファイルが途中で切れている場合
+     */
+    public static PostalCodeDatabase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PostalCodeDatabase(buffer);
+        }
+    }
+
+    /**
+     * 登録されている郵便番号の件数を返却する。
+     *
+     * @return レコード数
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * 郵便番号を検索する。
+     *
+     * @param postalCode 郵便番号（ハイフンなし）
+     * @return 郵便番号検索結果。該当する住所がない場合は空のリストを持つ
+     */
+    public Response find(String postalCode) {
+        int key = parse(postalCode);
+        List<Location> locations = new ArrayList<>(1);
+        if (key >= 0) {
+            // 同じ郵便番号に複数の町域が登録されている場合があるため、最初のレコードから順に読む。
+            for (int i = lowerBound(key); i < recordCount && keyAt(i) == key; i++) {
+                locations.add(location(i, postalCode));
+            }
+        }
+        LocationList list = new LocationList();
+        list.location = locations;
+        Response response = new Response();
+        response.response = list;
+        return response;
+    }
+
+    /**
+     * 郵便番号以上の最初のレコードの番号を二分探索で求める。
+     *
+     * @param key 郵便番号
+     * @return レコード番号
+     */
+    private int lowerBound(int key) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int keyAt(int index) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    private Location location(int index, String postalCode) {
+        int position = HEADER_SIZE + index * RECORD_SIZE;
+        Location location = new Location();
+        location.postal = postalCode;
+        location.y = buffer.getFloat(position + 4);
+        location.x = buffer.getFloat(position + 8);
+        location.prefecture = string(buffer.getInt(position + 12));
+        location.city = string(buffer.getInt(position + 16));
+        location.city_kana = string(buffer.getInt(position + 20));
+        location.town = string(buffer.getInt(position + 24));
+        location.town_kana = string(buffer.getInt(position + 28));
+        return location;
+    }
+
+    /**
+     * 文字列番号に対応する文字列を返却する。
+     * 複数のスレッドが同時に変換しても同じ内容の文字列になるため、同期はしない。
+     *
+     * @param id 文字列番号
+     * @return 文字列
+     */
+    private String string(int id) {
+        if (id < 0 || id >= strings.length) {
+            throw new IllegalStateException("郵便番号データベースの文字列番号が不正です。id=" + id);
+        }
+        String value = strings[id];
+        if (value == null) {
+            int start = buffer.getInt(stringIndexOffset + id * Integer.BYTES);
+            int end = buffer.getInt(stringIndexOffset + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer source = buffer.duplicate();
+            source.position(stringDataOffset + start);
+            source.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 7桁の郵便番号を数値に変換する。
+     *
+     * @param postalCode 郵便番号（ハイフンなし）
+     * @return 数値。7桁の数字でない場合は-1
+     */
+    private static int parse(String postalCode) {
+        if (postalCode == null || postalCode.length() != 7) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < 7; i++) {
+            int digit = postalCode.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
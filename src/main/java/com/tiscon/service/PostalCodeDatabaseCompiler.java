@@ -0,0 +1,154 @@
+package com.tiscon.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 郵便番号CSVを {@link PostalCodeDatabase} のバイナリ形式に変換するクラス。
+ * <p>
+ * CSVは日本郵便のKEN_ALL.CSVと同じ列の並び(3列目: 郵便番号、5・6列目: 市区町村名・町域名のカナ、
+ * 7〜9列目: 都道府県名・市区町村名・町域名)で、最後の2列に緯度と経度を追加したものとする。
+ * <pre>
+ * java -cp target/classes com.tiscon.service.PostalCodeDatabaseCompiler KEN_ALL_LATLNG.CSV postal-code.db [文字コード]
+ * </pre>
+ */
+public class PostalCodeDatabaseCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("使い方: PostalCodeDatabaseCompiler <郵便番号CSV> <出力ファイル> [文字コード(デフォルト: UTF-8)]");
+            System.exit(1);
+        }
+        Charset charset = args.length > 2 ? Charset.forName(args[2]) : StandardCharsets.UTF_8;
+        int count = compile(Paths.get(args[0]), charset, Paths.get(args[1]));
+        System.out.println(count + "件の郵便番号を変換しました。");
+    }
+
+    /**
+     * 郵便番号CSVをバイナリ形式に変換する。
+     *
+     * @param csv     郵便番号CSV
+     * @param charset CSVの文字コード
+     * @param output  出力ファイル
+     * @return 変換した件数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public static int compile(Path csv, Charset charset, Path output) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<int[]> records = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, charset)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> columns = split(line);
+                if (columns.size() < 11 || !isPostalCode(columns.get(2))) {
+                    // ヘッダー行や不正な行は読み飛ばす。
+                    continue;
+                }
+                float latitude = Float.parseFloat(columns.get(columns.size() - 2));
+                float longitude = Float.parseFloat(columns.get(columns.size() - 1));
+                records.add(new int[]{
+                        Integer.parseInt(columns.get(2)),
+                        Float.floatToRawIntBits(latitude),
+                        Float.floatToRawIntBits(longitude),
+                        intern(columns.get(6), strings, stringIds),
+                        intern(columns.get(7), strings, stringIds),
+                        intern(columns.get(4), strings, stringIds),
+                        intern(columns.get(8), strings, stringIds),
+                        intern(columns.get(5), strings, stringIds)});
+            }
+        }
+        records.sort(Comparator.comparingInt(record -> record[0]));
+
+        byte[][] encoded = new byte[strings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(PostalCodeDatabase.MAGIC);
+            out.writeInt(PostalCodeDatabase.VERSION);
+            out.writeInt(records.size());
+            out.writeInt(encoded.length);
+            for (int[] record : records) {
+                for (int value : record) {
+                    out.writeInt(value);
+                }
+            }
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+        return records.size();
+    }
+
+    private static int intern(String value, List<String> strings, Map<String, Integer> stringIds) {
+        return stringIds.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    private static boolean isPostalCode(String value) {
+        if (value.length() != 7) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * CSVの1行を列に分割する。ダブルクォートで囲まれた列の中のカンマは区切りとみなさない。
+     *
+     * @param line CSVの1行
+     * @return 列
+     */
+    private static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString().trim());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString().trim());
+        return columns;
+    }
+}
@@ -1,14 +1,177 @@
 package com.tiscon.service;
 
 import java.io.IOException;
-import java.net.URL;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
 
 
+@Service
 public class PostalCodeService {
+
+    /** 郵便番号検索APIのURL(末尾に郵便番号を付ける) */
+    private static final String DEFAULT_API_URL = "http://geoapi.heartrails.com/api/json?method=searchByPostal&postal=";
+
+    /** 検索結果を読み込むための設定済みのReader。スレッドセーフなため共有する */
+    private static final ObjectReader RESPONSE_READER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false)
+            .readerFor(Response.class);
+
+    /** ヘッジ要求までの待ち時間をAPIの応答時間の分布から求める際のパーセンタイル */
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    /** ヘッジ要求までの待ち時間を求め直す間隔[ナノ秒] */
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** 郵便番号データベース。設定されていない場合はnullとし、APIを呼び出す */
+    private final PostalCodeDatabase database;
+
+    /** 郵便番号ごとの検索結果のキャッシュ。検索中の郵便番号は検索結果を待つFutureを共有する */
+    private final AsyncLoadingCache<String, Response> cache;
+
+    /** 郵便番号検索APIのURL(末尾に郵便番号を付ける) */
+    private final String apiUrl;
+
+    /** APIの呼び出しに共有するHTTPクライアント。接続は再利用する */
+    private final HttpClient httpClient;
+
+    /** 1件の郵便番号検索の期限(ヘッジ要求を含む) */
+    private final Duration timeout;
+
+    /** APIの応答時間の分布が得られるまでの、ヘッジ要求までの待ち時間[ナノ秒] */
+    private final long defaultHedgeDelayNanos;
+
+    /** ヘッジ要求までの待ち時間[ナノ秒]と、それを求めた時刻(System.nanoTime()) */
+    private volatile long hedgeDelayNanos;
+
+    private volatile long hedgeDelayComputedAt;
+
+    private final CircuitBreaker circuitBreaker;
+
+    /** 郵便番号検索の処理時間(検索先と結果ごと) */
+    private final Timer apiSuccessTimer;
+
+    private final Timer apiFailureTimer;
+
+    private final Timer databaseTimer;
+
+    /** APIへの1回の要求の応答時間。ヘッジ要求までの待ち時間を求めるために使う */
+    private final Timer apiRequestTimer;
+
+    /** ヘッジ要求を送った回数 */
+    private final Counter hedgeCounter;
+
+    /** サーキットブレーカーが開いていたため、APIを呼び出さなかった回数 */
+    private final Counter rejectedCounter;
+
+    /**
+     * デフォルトの設定(最大10,000件・24時間・期限3秒・ヘッジ500ミリ秒・5回連続の失敗で30秒停止)でインスタンスを生成する。
+     *
+     * @param meterRegistry メトリクスの登録先
+     */
+    public PostalCodeService(MeterRegistry meterRegistry) {
+        this(DEFAULT_API_URL, 10_000, Duration.ofHours(24), Duration.ofSeconds(3), Duration.ofMillis(500),
+                5, Duration.ofSeconds(30), "", meterRegistry);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param apiUrl           郵便番号検索APIのURL(末尾に郵便番号を付ける)
+     * @param maximumSize      キャッシュする郵便番号の最大件数
+     * @param expireAfterWrite キャッシュの有効期間
+     * @param timeout          1件の郵便番号検索の期限(接続・ヘッジ要求を含む)
+     * @param hedgeDelay       APIの応答時間の分布が得られるまでの、ヘッジ要求までの待ち時間
+     * @param failureThreshold サーキットブレーカーが開くまでの連続した失敗の回数
+     * @param openDuration     サーキットブレーカーが開いてから、試しにAPIを呼び出すまでの時間
+     * @param databasePath     郵便番号データベースのファイル。指定した場合はAPIを呼び出さずにこのファイルを検索する
+     * @param meterRegistry    メトリクスの登録先
+     */
+    @Autowired
+    public PostalCodeService(@Value("${estimate.postal.api-url:" + DEFAULT_API_URL + "}") String apiUrl,
+                             @Value("${estimate.postal.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${estimate.postal.cache.expire-after-write:24h}") Duration expireAfterWrite,
+                             @Value("${estimate.postal.timeout:3s}") Duration timeout,
+                             @Value("${estimate.postal.hedge-delay:500ms}") Duration hedgeDelay,
+                             @Value("${estimate.postal.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                             @Value("${estimate.postal.circuit-breaker.open-duration:30s}") Duration openDuration,
+                             @Value("${estimate.postal.database:}") String databasePath,
+                             MeterRegistry meterRegistry) {
+        try {
+            this.database = databasePath.isEmpty() ? null : PostalCodeDatabase.open(Paths.get(databasePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("郵便番号データベースを開けませんでした。path=" + databasePath, e);
+        }
+        this.apiUrl = apiUrl;
+        this.timeout = timeout;
+        this.defaultHedgeDelayNanos = hedgeDelay.toNanos();
+        this.hedgeDelayNanos = defaultHedgeDelayNanos;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        // 同じ郵便番号の検索が同時に来た場合は、1回だけAPIを呼び出して結果を共有する。失敗した結果は保持しない。
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync(this::fetch);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "postal-code");
+        this.apiSuccessTimer = lookupTimer(meterRegistry, "api", "success");
+        this.apiFailureTimer = lookupTimer(meterRegistry, "api", "failure");
+        this.databaseTimer = lookupTimer(meterRegistry, "database", "success");
+        this.apiRequestTimer = Timer.builder("estimate.postal.api.request")
+                .description("郵便番号検索APIへの1回の要求の応答時間")
+                .publishPercentiles(HEDGE_PERCENTILE)
+                .register(meterRegistry);
+        this.hedgeCounter = Counter.builder("estimate.postal.api.hedged")
+                .description("応答が遅いため郵便番号検索APIへ2回目の要求を送った回数")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("estimate.postal.api.rejected")
+                .description("サーキットブレーカーが開いていたため郵便番号検索APIを呼び出さなかった回数")
+                .register(meterRegistry);
+        Gauge.builder("estimate.postal.circuit-breaker.open", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("郵便番号検索APIのサーキットブレーカーが開いているかどうか(開いている場合は1)")
+                .register(meterRegistry);
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String source, String outcome) {
+        return Timer.builder("estimate.postal.lookup")
+                .description("郵便番号検索の処理時間(キャッシュから返却した場合を除く)")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     /**
      * APIを用いて郵便番号から住所等を取得するメゾット
      *
@@ -23,17 +186,167 @@ public class PostalCodeService {
      *
      * このクラスの使用には、try、catchが必要です。
      * 詳細は、Testクラスをご確認ください。
+     * 一度検索した郵便番号は、有効期間内であればAPIを呼び出さずにキャッシュから返却します。
+     * 郵便番号データベースが設定されている場合は、APIを呼び出さずにデータベースから返却します。
+     * 期限までに検索できない場合や、APIの呼び出しを止めている場合はIOExceptionが発生します。
      */
-        public Response getResponse(String postal_code) throws IOException  {
-        Response response;
+    public Response getResponse(String postal_code) throws IOException {
+        try {
+            return getResponseAsync(postal_code).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IOException("郵便番号の検索が期限までに終わりませんでした。postalCode=" + postal_code, e.getCause());
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("郵便番号の検索が中断されました。postalCode=" + postal_code, e);
+        }
+    }
+
+    /**
+     * 郵便番号を検索する。呼び出し元のスレッドは待たせず、検索結果はFutureで返却する。
+     * 転居元と転居先のように複数の郵便番号を検索する場合は、並行して検索できる。
+     * <p>
+     * 期限までに検索できない場合はTimeoutException、APIの呼び出しに失敗した場合や
+     * サーキットブレーカーが開いている場合はIOExceptionでFutureが完了する。
+     *
+     * @param postalCode 郵便番号(ハイフンは省略可)
+     * @return 郵便番号検索結果
+     */
+    public CompletableFuture<Response> getResponseAsync(String postalCode) {
+        if (database != null) {
+            long start = System.nanoTime();
+            Response response = database.find(normalize(postalCode));
+            databaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return CompletableFuture.completedFuture(response);
+        }
+        return cache.get(normalize(postalCode));
+    }
+
+    /**
+     * APIを呼び出して郵便番号を検索する。
+     * 最初の要求がこれまでの応答時間の95パーセンタイルを超えても応答しない場合は、同じ要求をもう1回送り、
+     * 先に成功した応答を使う(ヘッジ要求)。どちらも期限内に成功しなければ失敗とする。
+     * <p>
+     * Java 11のHttpClientは、sendAsyncが返却したFutureを取り消しても送信中の要求を中断しない。
+     * そのため、検索結果が確定した後も残りの要求は応答または要求ごとの期限まで続き、その応答は使わずに捨てる。
+     *
+     * @param postalCode 郵便番号（ハイフンなし）
+     * @param executor   キャッシュが検索に使うExecutor(使わない)
+     * @return 郵便番号検索結果
+     */
+    private CompletableFuture<Response> fetch(String postalCode, Executor executor) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(
+                    new IOException("郵便番号検索APIの呼び出しを一時的に止めています。postalCode=" + postalCode));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        sendAndComplete(postalCode, result, pending);
+
+        long hedgeDelay = hedgeDelayNanos();
+        if (hedgeDelay < timeout.toNanos()) {
+            CompletableFuture.runAsync(() -> {
+                if (!result.isDone() && pending.compareAndSet(1, 2)) {
+                    hedgeCounter.increment();
+                    sendAndComplete(postalCode, result, pending);
+                }
+            }, CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS));
+        }
+
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((response, e) -> {
+            if (e == null) {
+                circuitBreaker.onSuccess();
+                apiSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                circuitBreaker.onFailure();
+                apiFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * 郵便番号検索APIへ要求を送り、その結果を検索結果に反映する。検索結果が先に確定していた場合、応答は使わない。
+     */
+    private void sendAndComplete(String postalCode, CompletableFuture<Response> result, AtomicInteger pending) {
+        send(postalCode).whenComplete((response, e) -> complete(result, pending, response, e));
+    }
+
+    /**
+     * 要求の結果を検索結果に反映する。成功した場合はその応答で完了し、
+     * 失敗した場合は他に応答を待っている要求がなければ失敗で完了する。
+     */
+    private static void complete(CompletableFuture<Response> result, AtomicInteger pending,
+                                 Response response, Throwable e) {
+        if (e == null) {
+            result.complete(response);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+        }
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
+    /**
+     * 郵便番号検索APIへ要求を1回送る。
+     *
+     * @param postalCode 郵便番号（ハイフンなし）
+     * @return 郵便番号検索結果
+     */
+    private CompletableFuture<Response> send(String postalCode) {
+        long start = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + postalCode))
+                .timeout(timeout)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    apiRequestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new IOException(
+                                "郵便番号検索APIがエラーを返却しました。status=" + response.statusCode()));
+                    }
+                    try {
+                        return RESPONSE_READER.readValue(response.body());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
 
-        URL url = new URL("http://geoapi.heartrails.com/api/json?method=searchByPostal&postal="+postal_code);
-        response = mapper.readValue(url, Response.class);
+    /**
+     * ヘッジ要求までの待ち時間を取得する。APIの応答時間の95パーセンタイルを1秒ごとに求め直す。
+     * 応答時間の分布がまだ得られていない場合は、設定された待ち時間を使う。
+     *
+     * @return 待ち時間[ナノ秒]
+     */
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedAt < HEDGE_DELAY_REFRESH_NANOS) {
+            return hedgeDelayNanos;
+        }
+        long delay = defaultHedgeDelayNanos;
+        for (ValueAtPercentile value : apiRequestTimer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == HEDGE_PERCENTILE && value.value() > 0) {
+                delay = (long) value.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        hedgeDelayNanos = delay;
+        hedgeDelayComputedAt = now;
+        return delay;
+    }
 
-        return response;
+    /**
+     * 郵便番号からハイフンを取り除く。
+     *
+     * @param postalCode 郵便番号
+     * @return ハイフンなしの郵便番号
+     */
+    private static String normalize(String postalCode) {
+        return postalCode.indexOf('-') < 0 ? postalCode : postalCode.replace("-", "");
     }
-}
\ No newline at end of file
+}
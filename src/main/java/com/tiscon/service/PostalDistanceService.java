@@ -0,0 +1,139 @@
+package com.tiscon.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 転居元と転居先の郵便番号の緯度経度から引越し距離を求めるクラス。
+ * 郵便番号の組み合わせごとに距離を保持し、同じ組み合わせの2回目以降は郵便番号を検索しない。
+ */
+@Service
+public class PostalDistanceService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostalDistanceService.class);
+
+    private final PostalCodeService postalCodeService;
+
+    /** 郵便番号の組み合わせごとの距離[km]。キーは2つの郵便番号を小さい順に並べた数値 */
+    private final Cache<Long, Double> distances;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param postalCodeService PostalCodeServiceクラス
+     * @param maximumSize       距離を保持する郵便番号の組み合わせの最大件数
+     */
+    public PostalDistanceService(PostalCodeService postalCodeService,
+                                 @Value("${estimate.postal.distance-cache.maximum-size:100000}") long maximumSize) {
+        this.postalCodeService = postalCodeService;
+        this.distances = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * 郵便番号間の距離を取得する。
+     *
+     * @param oldPostalCode 転居元の郵便番号(ハイフンは省略可)
+     * @param newPostalCode 転居先の郵便番号(ハイフンは省略可)
+     * @return 距離[km]。郵便番号が不正、または住所が見つからない場合はNaN
+     */
+    public double getDistance(String oldPostalCode, String newPostalCode) {
+        return getDistanceAsync(oldPostalCode, newPostalCode).join();
+    }
+
+    /**
+     * 郵便番号間の距離を取得する。呼び出し元のスレッドは待たせず、距離はFutureで返却する。
+     * 検索に失敗した場合も例外では完了せず、NaNで完了する。
+     *
+     * @param oldPostalCode 転居元の郵便番号(ハイフンは省略可)
+     * @param newPostalCode 転居先の郵便番号(ハイフンは省略可)
+     * @return 距離[km]。郵便番号が不正、または住所が見つからない場合はNaN
+     */
+    public CompletableFuture<Double> getDistanceAsync(String oldPostalCode, String newPostalCode) {
+        int from = parse(oldPostalCode);
+        int to = parse(newPostalCode);
+        if (from < 0 || to < 0) {
+            return CompletableFuture.completedFuture(Double.NaN);
+        }
+        // 距離は向きによらないため、小さい方の郵便番号を上位桁にしたキーで共有する。
+        long key = (long) Math.min(from, to) * 10_000_000L + Math.max(from, to);
+        Double distance = distances.getIfPresent(key);
+        if (distance != null) {
+            return CompletableFuture.completedFuture(distance);
+        }
+        return lookup(oldPostalCode, newPostalCode).thenApply(result -> {
+            if (!result.isNaN()) {
+                // 検索に失敗した場合は、次回改めて検索できるよう保持しない。
+                distances.put(key, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 転居元と転居先の郵便番号を並行して検索し、距離を求める。
+     * 検索が期限までに終わらない場合や、郵便番号検索APIの呼び出しを止めている場合はNaNを返却し、
+     * 呼び出し元は都道府県間の距離で見積もる。
+     *
+     * @param oldPostalCode 転居元の郵便番号
+     * @param newPostalCode 転居先の郵便番号
+     * @return 距離[km]。住所が見つからない場合はNaN
+     */
+    private CompletableFuture<Double> lookup(String oldPostalCode, String newPostalCode) {
+        return postalCodeService.getResponseAsync(oldPostalCode)
+                .thenCombine(postalCodeService.getResponseAsync(newPostalCode), (oldResponse, newResponse) -> {
+                    Location from = first(oldResponse);
+                    Location to = first(newResponse);
+                    if (from == null || to == null) {
+                        return Double.NaN;
+                    }
+                    return Distance.getDistanceKm(from.y, from.x, to.y, to.x);
+                })
+                .exceptionally(e -> {
+                    LOGGER.warn("郵便番号の検索に失敗しました。oldPostalCode={}, newPostalCode={}, cause={}",
+                            oldPostalCode, newPostalCode, e.getCause() != null ? e.getCause().toString() : e.toString());
+                    return Double.NaN;
+                });
+    }
+
+    private static Location first(Response response) {
+        if (response == null || response.response == null) {
+            return null;
+        }
+        List<Location> locations = response.response.location;
+        return locations == null || locations.isEmpty() ? null : locations.get(0);
+    }
+
+    /**
+     * 郵便番号(7桁、ハイフンは省略可)を数値に変換する。
+     *
+     * @param postalCode 郵便番号
+     * @return 数値。郵便番号として解釈できない場合は-1
+     */
+    private static int parse(String postalCode) {
+        if (postalCode == null) {
+            return -1;
+        }
+        int result = 0;
+        int digits = 0;
+        for (int i = 0; i < postalCode.length(); i++) {
+            char c = postalCode.charAt(i);
+            if (c == '-' && digits == 3) {
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > 7) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return digits == 7 ? result : -1;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.Prefecture;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 画面に表示する都道府県の一覧を保持する不変のクラス。
+ * <p>
+ * 入力画面のプルダウンの選択肢(&lt;option&gt;要素)は、選択中の都道府県ごとに事前に作成しておき、
+ * 画面を表示するたびに組み立てない。選択肢の値は郵便番号から住所を入力するスクリプト(YubinBango)に
+ * 合わせて、先頭の0を除いた都道府県コード("1"〜"47")とする。
+ * 選択肢には「東京都」「青森県」のように都道府県名に都・府・県を付けて表示する。
+ */
+public final class PrefectureCatalog {
+
+    /** 都道府県の一覧(都道府県IDの昇順) */
+    private final List<Prefecture> prefectures;
+
+    /** 都道府県IDごとの都道府県名 */
+    private final Map<String, String> names;
+
+    /** 選択中の都道府県ごとの選択肢。添字は都道府県コード(0は未選択) */
+    private final String[] options;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prefectures 都道府県
+     */
+    public PrefectureCatalog(List<Prefecture> prefectures) {
+        List<Prefecture> sorted = new ArrayList<>(prefectures);
+        sorted.sort(Comparator.comparingInt(prefecture -> code(prefecture.getPrefectureId())));
+        this.prefectures = Collections.unmodifiableList(sorted);
+
+        Map<String, String> nameMap = new LinkedHashMap<>();
+        int maxCode = 0;
+        for (Prefecture prefecture : sorted) {
+            nameMap.put(prefecture.getPrefectureId(), prefecture.getPrefectureName());
+            maxCode = Math.max(maxCode, code(prefecture.getPrefectureId()));
+        }
+        this.names = Collections.unmodifiableMap(nameMap);
+
+        this.options = new String[maxCode + 1];
+        for (int selected = 0; selected <= maxCode; selected++) {
+            options[selected] = render(sorted, selected);
+        }
+    }
+
+    /**
+     * 都道府県の一覧を取得する。
+     *
+     * @return 都道府県の一覧(変更不可)
+     */
+    public List<Prefecture> getPrefectures() {
+        return prefectures;
+    }
+
+    /**
+     * 都道府県IDごとの都道府県名を取得する。
+     *
+     * @return 都道府県名(変更不可)。キーは都道府県ID
+     */
+    public Map<String, String> getNames() {
+        return names;
+    }
+
+    /**
+     * 入力画面のプルダウンの選択肢を取得する。
+     *
+     * @param selectedPrefectureId 選択中の都道府県ID("01"・"1"のどちらの形式でもよい)
+     * @return &lt;option&gt;要素のHTML。選択中の都道府県がない場合は未選択の状態
+     */
+    public String getOptions(String selectedPrefectureId) {
+        int selected = code(selectedPrefectureId);
+        return options[selected < options.length ? selected : 0];
+    }
+
+    private static String render(List<Prefecture> prefectures, int selected) {
+        StringBuilder html = new StringBuilder(2048);
+        html.append("<option value=\"\">--</option>");
+        for (Prefecture prefecture : prefectures) {
+            int code = code(prefecture.getPrefectureId());
+            html.append("<option value=\"").append(code).append('"');
+            if (code == selected) {
+                html.append(" selected=\"selected\"");
+            }
+            html.append('>').append(HtmlUtils.htmlEscape(label(prefecture.getPrefectureName())))
+                    .append("</option>");
+        }
+        return html.toString();
+    }
+
+    /**
+     * 選択肢に表示する都道府県名を取得する。DBの都道府県名(「東京」「青森」など)に都・府・県を付ける。
+     *
+     * @param prefectureName 都道府県名
+     * @return 選択肢に表示する都道府県名。既に都・道・府・県が付いている場合はそのまま
+     */
+    static String label(String prefectureName) {
+        switch (prefectureName) {
+            case "東京":
+                return "東京都";
+            case "京都":
+            case "大阪":
+                return prefectureName + "府";
+            case "北海道":
+            case "東京都":
+            case "京都府":
+            case "大阪府":
+                return prefectureName;
+            default:
+                return prefectureName.endsWith("県") ? prefectureName : prefectureName + "県";
+        }
+    }
+
+    /**
+     * 都道府県IDを数値の都道府県コードに変換する。
+     *
+     * @param prefectureId 都道府県ID
+     * @return 都道府県コード。数値として解釈できない場合は0
+     */
+    private static int code(String prefectureId) {
+        if (prefectureId == null || prefectureId.isEmpty() || prefectureId.length() > 2) {
+            return 0;
+        }
+        int result = 0;
+        for (int i = 0; i < prefectureId.length(); i++) {
+            int digit = prefectureId.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
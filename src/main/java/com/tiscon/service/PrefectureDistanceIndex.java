@@ -0,0 +1,109 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.PrefectureDistance;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 都道府県間の距離を都道府県IDの数値で引ける行列として保持するクラス。
+ * 行列は1次元の配列で持ち、FromとToを逆転させた距離と同一都道府県内の距離(0)も格納する。
+ */
+public final class PrefectureDistanceIndex {
+
+    /** 距離が登録されていないことを表す値 */
+    private static final double UNKNOWN = Double.NaN;
+
+    /** 行列の一辺の長さ(最大の都道府県ID + 1) */
+    private final int size;
+
+    /** 距離[km]。添字は「引越し元ID * size + 引越し先ID」 */
+    private final double[] distances;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prefectureDistances 都道府県間の距離
+     */
+    public PrefectureDistanceIndex(List<PrefectureDistance> prefectureDistances) {
+        int maxId = 0;
+        for (PrefectureDistance distance : prefectureDistances) {
+            maxId = Math.max(maxId, toIndex(distance.getPrefectureIdFrom()));
+            maxId = Math.max(maxId, toIndex(distance.getPrefectureIdTo()));
+        }
+        this.size = maxId + 1;
+        this.distances = new double[size * size];
+        Arrays.fill(distances, UNKNOWN);
+
+        for (PrefectureDistance distance : prefectureDistances) {
+            int from = toIndex(distance.getPrefectureIdFrom());
+            int to = toIndex(distance.getPrefectureIdTo());
+            distances[from * size + to] = distance.getDistance();
+            distances[to * size + from] = distance.getDistance();
+        }
+        // 同じ都道府県内の引越しは距離0とする。
+        for (int id = 1; id < size; id++) {
+            distances[id * size + id] = 0;
+        }
+    }
+
+    /**
+     * 都道府県間の距離を取得する。
+     *
+     * @param prefectureIdFrom 引っ越し元の都道府県
+     * @param prefectureIdTo   引越し先の都道府県
+     * @return 距離[km]
+     * @throws IllegalArgumentException 距離が登録されていない組み合わせの場合
+     */
+    public double getDistance(String prefectureIdFrom, String prefectureIdTo) {
+        int from = toIndex(prefectureIdFrom);
+        int to = toIndex(prefectureIdTo);
+        double distance = from < size && to < size ? distances[from * size + to] : UNKNOWN;
+        if (Double.isNaN(distance)) {
+            throw new IllegalArgumentException("都道府県間の距離が登録されていません。from="
+                    + prefectureIdFrom + ", to=" + prefectureIdTo);
+        }
+        return distance;
+    }
+
+    /**
+     * 行列の一辺の長さ(最大の都道府県ID + 1)を取得する。
+     *
+     * @return 行列の一辺の長さ
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * 都道府県IDの数値で都道府県間の距離を取得する。
+     *
+     * @param from 引っ越し元の都道府県IDの数値
+     * @param to   引越し先の都道府県IDの数値
+     * @return 距離[km]。登録されていない組み合わせの場合はNaN
+     */
+    double getDistance(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    /**
+     * 都道府県ID(CHAR(2)、ゼロ埋めなしも可)を数値に変換する。
+     *
+     * @param prefectureId 都道府県ID
+     * @return 都道府県IDの数値
+     */
+    static int toIndex(String prefectureId) {
+        if (prefectureId == null || prefectureId.isEmpty() || prefectureId.length() > 2) {
+            throw new IllegalArgumentException("都道府県IDが不正です。prefectureId=" + prefectureId);
+        }
+        int index = 0;
+        for (int i = 0; i < prefectureId.length(); i++) {
+            int digit = prefectureId.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("都道府県IDが不正です。prefectureId=" + prefectureId);
+            }
+            index = index * 10 + digit;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,247 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.Holiday;
+import com.tiscon.domain.OptionalService;
+import com.tiscon.domain.PackageBox;
+import com.tiscon.domain.Prefecture;
+import com.tiscon.domain.PrefectureDistance;
+import com.tiscon.domain.SeasonCoefficient;
+import com.tiscon.domain.TruckCapacity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 概算見積もりと画面表示に必要な参照データをメモリ上に保持する不変のスナップショット。
+ * 見積もり1件の計算や画面の表示をDBへ問い合わせることなく行うために使用する。
+ * <p>
+ * スナップショットはバイナリファイルに書き出せる。書き出したファイルを読み込めば、
+ * DBの参照データを読み込まずに同じ見積もりを返却できる。ファイルの形式は次のとおり(数値はすべてビッグエンディアン)。
+ * <pre>
+ * MAGIC(int), VERSION(int), 都道府県の件数(int), 都道府県ごとの(都道府県ID, 都道府県名)(修正UTF-8),
+ * 料金表({@link QuoteTable#writeTo(DataOutputStream)}), ここまでのCRC32(int)
+ * </pre>
+ * 参照データのバージョンは {@link PricingSnapshotHolder} が有効にした順に採番するもので、ファイルには書き出さない。
+ */
+public final class PricingSnapshot {
+
+    /** ファイルの先頭の識別子("QTBL") */
+    private static final int MAGIC = 0x5154424C;
+
+    /** ファイルの形式のバージョン */
+    private static final int VERSION = 1;
+
+    /** 都道府県の一覧 */
+    private final PrefectureCatalog prefectures;
+
+    /** 事前に計算した料金表 */
+    private final QuoteTable quoteTable;
+
+    /** 参照データのバージョン。有効にする前は0 */
+    private final long version;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prefectures       都道府県
+     * @param distances         都道府県間の距離
+     * @param packageBoxes      荷物ごとの段ボール数
+     * @param trucks            トラックの積載量と料金
+     * @param optionalServices  オプションサービスの料金
+     * @param seasons           季節ごとの係数
+     * @param holidays          祝日
+     * @param truckTableCeiling トラック料金を事前に計算する段ボール数の上限
+     */
+    public PricingSnapshot(List<Prefecture> prefectures,
+                           List<PrefectureDistance> distances, List<PackageBox> packageBoxes,
+                           List<TruckCapacity> trucks, List<OptionalService> optionalServices,
+                           List<SeasonCoefficient> seasons, List<Holiday> holidays,
+                           int truckTableCeiling) {
+        this(prefectures, QuoteTable.build(distances, packageBoxes, trucks, optionalServices, seasons, holidays,
+                truckTableCeiling));
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param prefectures 都道府県
+     * @param quoteTable  事前に計算した料金表
+     */
+    public PricingSnapshot(List<Prefecture> prefectures, QuoteTable quoteTable) {
+        this(new PrefectureCatalog(prefectures), quoteTable, 0);
+    }
+
+    private PricingSnapshot(PrefectureCatalog prefectures, QuoteTable quoteTable, long version) {
+        this.prefectures = prefectures;
+        this.quoteTable = quoteTable;
+        this.version = version;
+    }
+
+    /**
+     * 参照データのバージョンを付けたスナップショットを作成する。参照データは共有する。
+     *
+     * @param version 参照データのバージョン
+     * @return スナップショット
+     */
+    PricingSnapshot withVersion(long version) {
+        return new PricingSnapshot(prefectures, quoteTable, version);
+    }
+
+    /**
+     * スナップショットをファイルに書き出す。
+     * 一時ファイルに書き出してから置き換えるため、読み込む側が書き出し途中のファイルを読むことはない。
+     *
+     * @param file 書き出し先のファイル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                CheckedOutputStream checked = new CheckedOutputStream(stream, new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(prefectures.getPrefectures().size());
+                for (Prefecture prefecture : prefectures.getPrefectures()) {
+                    out.writeUTF(prefecture.getPrefectureId());
+                    out.writeUTF(prefecture.getPrefectureName());
+                }
+                quoteTable.writeTo(out);
+                out.flush();
+                new DataOutputStream(stream).writeInt((int) checked.getChecksum().getValue());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * {@link #writeTo(Path)}で書き出したファイルからスナップショットを読み込む。
+     *
+     * @param file ファイル
+     * @return スナップショット
+     * @throws IOException 入出力エラーが発生した場合、またはファイルの形式が不正な場合
+     */
+    public static PricingSnapshot readFrom(Path file) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+            CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("料金表のファイルではありません。file=" + file);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("料金表の形式が不正です。file=" + file);
+            }
+            List<Prefecture> prefectures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Prefecture prefecture = new Prefecture();
+                prefecture.setPrefectureId(in.readUTF());
+                prefecture.setPrefectureName(in.readUTF());
+                prefectures.add(prefecture);
+            }
+            QuoteTable quoteTable = QuoteTable.readFrom(in);
+            int expected = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(stream).readInt() != expected) {
+                throw new IOException("料金表のファイルが壊れています。file=" + file);
+            }
+            return new PricingSnapshot(prefectures, quoteTable);
+        }
+    }
+
+    /**
+     * 参照データのバージョンを取得する。参照データを差し替えるたびに1ずつ増える。
+     *
+     * @return 参照データのバージョン
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 都道府県の一覧を取得する。
+     *
+     * @return 都道府県の一覧
+     */
+    public PrefectureCatalog getPrefectures() {
+        return prefectures;
+    }
+
+    /**
+     * 事前に計算した料金表を取得する。
+     *
+     * @return 料金表
+     */
+    public QuoteTable getQuoteTable() {
+        return quoteTable;
+    }
+
+    /**
+     * 荷物ごとの段ボール数を取得する。
+     *
+     * @param packageId 荷物ID
+     * @return 段ボール数
+     */
+    public int getBoxPerPackage(int packageId) {
+        return quoteTable.getBoxPerPackage(packageId);
+    }
+
+    /**
+     * 段ボール数に応じたトラック料金を取得する。
+     * 段ボールをすべて載せられるトラックの組み合わせのうち、最も安い料金を返却する。
+     *
+     * @param boxNum 総段ボール数
+     * @return 料金[円]
+     */
+    public long getPricePerTruck(int boxNum) {
+        return quoteTable.getPricePerTruck(boxNum);
+    }
+
+    /**
+     * オプションサービスの料金を取得する。
+     *
+     * @param serviceId サービスID
+     * @return 料金
+     */
+    public int getPricePerOptionalService(int serviceId) {
+        return quoteTable.getPricePerOptionalService(serviceId);
+    }
+
+    /**
+     * 季節係数を取得する。
+     *
+     * @param movingDate 引っ越し日(yyyy-MM-dd)
+     * @return 季節係数[‰]
+     */
+    public int getSeasonCoefficientPerMille(String movingDate) {
+        return quoteTable.getSeasonCoefficientPerMille(quoteTable.getSeasonTier(movingDate));
+    }
+
+    /**
+     * 季節係数を取得する。
+     *
+     * @param movingDate 引っ越し日
+     * @return 季節係数[‰]
+     */
+    public int getSeasonCoefficientPerMille(LocalDate movingDate) {
+        return quoteTable.getSeasonCoefficientPerMille(quoteTable.getSeasonTier(movingDate));
+    }
+}
@@ -0,0 +1,187 @@
+package com.tiscon.service;
+
+import com.tiscon.dao.EstimateDao;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 現在有効な {@link PricingSnapshot} を保持するクラス。
+ * 参照データを再読み込みした場合は新しいスナップショットを作成し、参照を一括で差し替える。
+ * <p>
+ * 料金表のファイルの読み込み元が設定されている場合は、DBの参照データの代わりにそのファイルを読み込む。
+ * 書き出し先が設定されている場合は、DBから読み込むたびに料金表をファイルに書き出す。
+ * 書き出したファイルを他のインスタンスに配布すれば、参照データを持たないインスタンスでも見積もりを返却できる。
+ * <p>
+ * 参照データの読み込みを遅らせる設定の場合は起動時に読み込まず、最初に取得された時点で読み込む。
+ * <p>
+ * スナップショットを差し替えるたびに参照データのバージョンを1ずつ増やし、スナップショットに付けて公開する。
+ * 差し替える前に取得したスナップショットはそのまま使えるため、計算中の見積もりは取得したときのバージョンで完了する。
+ */
+@Component
+public class PricingSnapshotHolder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PricingSnapshotHolder.class);
+
+    private final EstimateDao estimateDAO;
+
+    /** トラック料金を事前に計算する段ボール数の上限 */
+    private final int truckTableCeiling;
+
+    /** 料金表のファイルの読み込み元。設定されていない場合はnull */
+    private final Path importPath;
+
+    /** 料金表のファイルの書き出し先。設定されていない場合はnull */
+    private final Path exportPath;
+
+    /** 起動時に参照データを読み込まず、最初に取得された時点で読み込むかどうか */
+    private final boolean deferredWarmUp;
+
+    /** 現在有効なスナップショット */
+    private volatile PricingSnapshot snapshot;
+
+    /** 最後に有効にした参照データのバージョン */
+    private long version;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param estimateDAO       EstimateDaoクラス
+     * @param truckTableCeiling トラック料金を事前に計算する段ボール数の上限
+     * @param importPath        料金表のファイルの読み込み元。空の場合はDBから読み込む
+     * @param exportPath        料金表のファイルの書き出し先。空の場合は書き出さない
+     * @param deferredWarmUp    起動時に参照データを読み込まず、最初に取得された時点で読み込むかどうか
+     * @param meterRegistry     メトリクスの登録先
+     */
+    public PricingSnapshotHolder(EstimateDao estimateDAO,
+                                 @Value("${estimate.truck.table-ceiling:1000}") int truckTableCeiling,
+                                 @Value("${estimate.quote-table.import-path:}") String importPath,
+                                 @Value("${estimate.quote-table.export-path:}") String exportPath,
+                                 @Value("${estimate.reference-data.deferred-warm-up:false}") boolean deferredWarmUp,
+                                 MeterRegistry meterRegistry) {
+        this.estimateDAO = estimateDAO;
+        this.truckTableCeiling = truckTableCeiling;
+        this.importPath = importPath.isEmpty() ? null : Paths.get(importPath);
+        this.exportPath = exportPath.isEmpty() ? null : Paths.get(exportPath);
+        this.deferredWarmUp = deferredWarmUp;
+        Gauge.builder("estimate.reference-data.version", this, PricingSnapshotHolder::getVersion)
+                .description("現在有効な参照データのバージョン")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 起動時に参照データを読み込む。読み込みを遅らせる設定の場合は何もしない。
+     */
+    @PostConstruct
+    void initialize() {
+        if (!deferredWarmUp) {
+            reload();
+        }
+    }
+
+    /**
+     * DB(または料金表のファイル)から参照データを読み込み、スナップショットを差し替える。
+     */
+    public synchronized void reload() {
+        if (importPath != null) {
+            try {
+                install(PricingSnapshot.readFrom(importPath));
+            } catch (IOException e) {
+                throw new UncheckedIOException("料金表のファイルを読み込めませんでした。path=" + importPath, e);
+            }
+            LOGGER.info("料金表のファイルを読み込みました。path={}", importPath);
+            return;
+        }
+        export(install(new PricingSnapshot(
+                estimateDAO.getAllPrefectures(),
+                estimateDAO.getAllPrefectureDistances(),
+                estimateDAO.getAllPackageBoxes(),
+                estimateDAO.getAllTruckCapacities(),
+                estimateDAO.getAllOptionalServices(),
+                estimateDAO.getAllSeasonCoefficients(),
+                estimateDAO.getAllHolidays(),
+                truckTableCeiling)));
+    }
+
+    /**
+     * 別の読み込み元(参照データのCSVなど)から作成したスナップショットに差し替える。
+     * 料金表のファイルの書き出し先が設定されている場合は、差し替えたスナップショットを書き出す。
+     *
+     * @param loaded 新しいスナップショット
+     * @return 差し替えた後の参照データのバージョン
+     */
+    public synchronized long replace(PricingSnapshot loaded) {
+        PricingSnapshot installed = install(loaded);
+        LOGGER.info("参照データを差し替えました。version={}", installed.getVersion());
+        export(installed);
+        return installed.getVersion();
+    }
+
+    /**
+     * 新しいバージョンを付けて、スナップショットを差し替える。
+     */
+    private PricingSnapshot install(PricingSnapshot loaded) {
+        PricingSnapshot installed = loaded.withVersion(++version);
+        snapshot = installed;
+        return installed;
+    }
+
+    private void export(PricingSnapshot installed) {
+        if (exportPath != null) {
+            try {
+                installed.writeTo(exportPath);
+                LOGGER.info("料金表のファイルを書き出しました。path={}", exportPath);
+            } catch (IOException e) {
+                // 書き出しに失敗しても、このインスタンスの見積もりには影響しない。
+                LOGGER.warn("料金表のファイルを書き出せませんでした。path={}", exportPath, e);
+            }
+        }
+    }
+
+    /**
+     * 現在有効なスナップショットを取得する。
+     * 1件の見積もりの計算中は、最初に取得したスナップショットを使い続けること。
+     *
+     * @return スナップショット
+     */
+    public PricingSnapshot get() {
+        PricingSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                reload();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 参照データを読み込み済みかどうかを取得する。
+     *
+     * @return 読み込み済みの場合はtrue
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * 現在有効な参照データのバージョンを取得する。読み込む前は0。
+     *
+     * @return 参照データのバージョン
+     */
+    public long getVersion() {
+        PricingSnapshot current = snapshot;
+        return current == null ? 0 : current.getVersion();
+    }
+}
@@ -0,0 +1,162 @@
+package com.tiscon.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiscon.dto.PriceBreakdown;
+import com.tiscon.dto.UserOrderDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.function.Function;
+
+/**
+ * 概算見積もりの結果を、料金に影響する項目の組み合わせごとに保持するクラス。
+ * <p>
+ * キーは料金に影響する項目(都道府県の組み合わせ・荷物4種の個数・洗濯機の設置の有無・季節係数の区分)を
+ * 1つのlongに詰めたものとする。ビット配置は上位から次のとおり。
+ * <pre>
+ * 引越し元の都道府県ID(7) | 引越し先の都道府県ID(7) | 季節係数の区分(8) | 洗濯機の設置(1) |
+ * 段ボール(17) | ベッド(8) | 自転車(8) | 洗濯機(8)
+ * </pre>
+ * 同じキーの計算が同時に要求された場合は1回だけ計算し、結果を共有する。
+ * 保持している結果は計算に使った参照データのスナップショットと対応付け、より新しいバージョンのスナップショットで
+ * 計算が要求された場合は破棄する。差し替え前の古いスナップショットで要求された計算は、保持している結果を破棄しないよう、
+ * 保持せずに計算する。
+ */
+final class QuoteMemo {
+
+    /** キーに詰められない見積もり依頼を表す値 */
+    static final long NO_KEY = -1;
+
+    private static final int PREFECTURE_BITS = 7;
+
+    private static final int TIER_BITS = 8;
+
+    private static final int BOX_BITS = 17;
+
+    private static final int PACKAGE_BITS = 8;
+
+    /** 見積もり結果のキャッシュ。キャッシュしない設定の場合はnull */
+    private final Cache<Long, Entry> cache;
+
+    /** キャッシュの内容を計算したスナップショット。バージョンが大きいものにだけ進める */
+    private volatile PricingSnapshot snapshot;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maximumSize   保持する見積もり結果の最大件数。0の場合は保持しない
+     * @param meterRegistry メトリクスの登録先
+     */
+    QuoteMemo(long maximumSize, MeterRegistry meterRegistry) {
+        if (maximumSize <= 0) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "quote");
+    }
+
+    /**
+     * 見積もり依頼のキーを求める。郵便番号を指定した見積もり依頼や、個数がビット幅に収まらない見積もり依頼はキャッシュしない。
+     *
+     * @param dto        見積もり依頼情報
+     * @param seasonTier 季節係数の区分
+     * @return キー。キャッシュしない場合は{@link #NO_KEY}
+     * @throws IllegalArgumentException 都道府県IDが不正な場合
+     */
+    static long keyOf(UserOrderDto dto, int seasonTier) {
+        if (!isEmpty(dto.getOldPostalCode()) && !isEmpty(dto.getNewPostalCode())) {
+            // 距離は郵便番号の緯度経度で決まるため、都道府県の組み合わせでは区別できない。
+            return NO_KEY;
+        }
+        int from = PrefectureDistanceIndex.toIndex(dto.getOldPrefectureId());
+        int to = PrefectureDistanceIndex.toIndex(dto.getNewPrefectureId());
+        if (!fits(from, PREFECTURE_BITS) || !fits(to, PREFECTURE_BITS) || !fits(seasonTier, TIER_BITS)
+                || !fits(dto.getBox(), BOX_BITS) || !fits(dto.getBed(), PACKAGE_BITS)
+                || !fits(dto.getBicycle(), PACKAGE_BITS) || !fits(dto.getWashingMachine(), PACKAGE_BITS)) {
+            return NO_KEY;
+        }
+        long key = from;
+        key = key << PREFECTURE_BITS | to;
+        key = key << TIER_BITS | seasonTier;
+        key = key << 1 | (dto.getWashingMachineInstallation() ? 1 : 0);
+        key = key << BOX_BITS | dto.getBox();
+        key = key << PACKAGE_BITS | dto.getBed();
+        key = key << PACKAGE_BITS | dto.getBicycle();
+        key = key << PACKAGE_BITS | dto.getWashingMachine();
+        return key;
+    }
+
+    /**
+     * キーに対応する見積もり結果を取得する。保持していない場合は計算して保持する。
+     *
+     * @param current    計算に使うスナップショット
+     * @param key        {@link #keyOf(UserOrderDto, int)}で求めたキー
+     * @param calculator 見積もりを計算する関数
+     * @return 見積もり結果
+     */
+    PriceBreakdown get(PricingSnapshot current, long key, Function<PricingSnapshot, PriceBreakdown> calculator) {
+        if (cache == null || key == NO_KEY) {
+            return calculator.apply(current);
+        }
+        PricingSnapshot memoized = snapshot;
+        if (memoized == null || memoized.getVersion() < current.getVersion()) {
+            memoized = advance(current);
+        }
+        if (memoized != current) {
+            // 差し替え前に参照データを取得した要求。新しいスナップショットの結果を破棄しないよう、保持せずに計算する。
+            return calculator.apply(current);
+        }
+        Entry entry = cache.get(key, k -> new Entry(current, calculator.apply(current)));
+        if (entry.snapshot != current) {
+            // 差し替えの前後に計算した結果は使わず、計算し直す。その間にさらに差し替えられた場合は保持しない。
+            PriceBreakdown price = calculator.apply(current);
+            if (snapshot == current) {
+                cache.put(key, new Entry(current, price));
+            }
+            return price;
+        }
+        return entry.price;
+    }
+
+    /**
+     * より新しいバージョンのスナップショットに進め、保持している見積もり結果をすべて破棄する。
+     *
+     * @param current 計算に使うスナップショット
+     * @return 進めた後のスナップショット。他のスレッドがさらに新しいものに進めていた場合はそのスナップショット
+     */
+    private synchronized PricingSnapshot advance(PricingSnapshot current) {
+        if (snapshot == null || snapshot.getVersion() < current.getVersion()) {
+            snapshot = current;
+            cache.invalidateAll();
+        }
+        return snapshot;
+    }
+
+    private static boolean fits(int value, int bits) {
+        return value >= 0 && value < 1 << bits;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * 見積もり結果と、計算に使ったスナップショット。
+     */
+    private static final class Entry {
+
+        private final PricingSnapshot snapshot;
+
+        private final PriceBreakdown price;
+
+        private Entry(PricingSnapshot snapshot, PriceBreakdown price) {
+            this.snapshot = snapshot;
+            this.price = price;
+        }
+    }
+}
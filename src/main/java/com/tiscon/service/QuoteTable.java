@@ -0,0 +1,354 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.Holiday;
+import com.tiscon.domain.OptionalService;
+import com.tiscon.domain.PackageBox;
+import com.tiscon.domain.PrefectureDistance;
+import com.tiscon.domain.SeasonCoefficient;
+import com.tiscon.domain.TruckCapacity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 概算見積もりの料金を事前に計算しておく料金表。
+ * <p>
+ * 料金の入力は「都道府県の組み合わせ × 季節係数の区分 × 段ボール数から決まるトラック料金」という小さな有限の空間になる。
+ * すべての組み合わせを掛け合わせると大きくなるため、距離の料金(都道府県の組み合わせ × 季節係数の区分)と
+ * トラック料金(段ボール数)を別々の表として持ち、見積もり1件は数回の配列の参照と掛け算で求める。
+ * 料金は季節係数を掛けた1/1000円単位で保持し、1円未満の切り捨ては{@link com.tiscon.dto.PriceBreakdown}で行う。
+ * <p>
+ * 参照データから作成するほか、{@link #writeTo(DataOutputStream)}で書き出したものを読み込んで復元できる。
+ */
+public final class QuoteTable {
+
+    /** 引越しする距離の1 kmあたりの料金[円] */
+    static final int PRICE_PER_DISTANCE = 100;
+
+    /** 距離が登録されていない組み合わせを表す値 */
+    private static final long UNKNOWN = -1;
+
+    /** 料金が登録されていないオプションサービスを表す値 */
+    private static final int NO_SERVICE = -1;
+
+    /** 都道府県の行列の一辺の長さ(最大の都道府県ID + 1) */
+    private final int size;
+
+    /** 引っ越し日に応じた季節係数の区分 */
+    private final SeasonCalendar seasons;
+
+    /** 季節係数を掛けた距離の料金[1/1000円]。添字は「区分 * size * size + 引越し元ID * size + 引越し先ID」 */
+    private final long[] distancePrices;
+
+    /** 段ボール数に応じたトラック料金(季節係数を掛ける前) */
+    private final TruckAllocationEngine trucks;
+
+    /** 荷物IDごとの段ボール数。添字は荷物ID */
+    private final int[] boxPerPackage;
+
+    /** サービスIDごとのオプションサービス料金[円]。添字はサービスID */
+    private final int[] optionPrices;
+
+    private QuoteTable(int size, SeasonCalendar seasons, long[] distancePrices, TruckAllocationEngine trucks,
+                       int[] boxPerPackage, int[] optionPrices) {
+        this.size = size;
+        this.seasons = seasons;
+        this.distancePrices = distancePrices;
+        this.trucks = trucks;
+        this.boxPerPackage = boxPerPackage;
+        this.optionPrices = optionPrices;
+    }
+
+    /**
+     * 参照データから料金表を作成する。
+     *
+     * @param distances         都道府県間の距離
+     * @param packageBoxes      荷物ごとの段ボール数
+     * @param trucks            トラックの積載量と料金
+     * @param optionalServices  オプションサービスの料金
+     * @param seasons           季節ごとの係数
+     * @param holidays          祝日
+     * @param truckTableCeiling トラック料金を事前に計算する段ボール数の上限
+     * @return 料金表
+     */
+    public static QuoteTable build(List<PrefectureDistance> distances, List<PackageBox> packageBoxes,
+                                   List<TruckCapacity> trucks, List<OptionalService> optionalServices,
+                                   List<SeasonCoefficient> seasons, List<Holiday> holidays,
+                                   int truckTableCeiling) {
+        PrefectureDistanceIndex distanceIndex = new PrefectureDistanceIndex(distances);
+        SeasonCalendar seasonCalendar = new SeasonCalendar(seasons, holidays);
+
+        int size = distanceIndex.getSize();
+        int pairs = size * size;
+        long[] distancePrices = new long[seasonCalendar.getTierCount() * pairs];
+        for (int tier = 0; tier < seasonCalendar.getTierCount(); tier++) {
+            int coefficient = seasonCalendar.getCoefficientPerMilleOfTier(tier);
+            for (int from = 0; from < size; from++) {
+                for (int to = 0; to < size; to++) {
+                    double distance = distanceIndex.getDistance(from, to);
+                    distancePrices[tier * pairs + from * size + to] = Double.isNaN(distance)
+                            ? UNKNOWN : toDistancePrice(distance, coefficient);
+                }
+            }
+        }
+
+        int maxPackageId = packageBoxes.stream().mapToInt(PackageBox::getPackageId).max().orElse(0);
+        int[] boxPerPackage = new int[maxPackageId + 1];
+        for (PackageBox packageBox : packageBoxes) {
+            boxPerPackage[packageBox.getPackageId()] = packageBox.getBox();
+        }
+
+        int maxServiceId = optionalServices.stream().mapToInt(OptionalService::getServiceId).max().orElse(0);
+        int[] optionPrices = new int[maxServiceId + 1];
+        Arrays.fill(optionPrices, NO_SERVICE);
+        for (OptionalService optionalService : optionalServices) {
+            if (optionalService.getPrice() < 0) {
+                throw new IllegalArgumentException("オプションサービスの料金が不正です。serviceId="
+                        + optionalService.getServiceId());
+            }
+            optionPrices[optionalService.getServiceId()] = optionalService.getPrice();
+        }
+
+        return new QuoteTable(size, seasonCalendar, distancePrices,
+                new TruckAllocationEngine(trucks, truckTableCeiling), boxPerPackage, optionPrices);
+    }
+
+    /**
+     * 引っ越し日の季節係数の区分を取得する。
+     *
+     * @param movingDate 引っ越し日
+     * @return 区分
+     */
+    public int getSeasonTier(LocalDate movingDate) {
+        return seasons.getTier(movingDate);
+    }
+
+    /**
+     * 引っ越し日の季節係数の区分を取得する。
+     *
+     * @param movingDate 引っ越し日(yyyy-MM-dd)
+     * @return 区分。日付として解釈できない場合は季節の設定がない日の区分
+     */
+    public int getSeasonTier(String movingDate) {
+        return seasons.getTier(movingDate);
+    }
+
+    /**
+     * 区分の季節係数を取得する。
+     *
+     * @param seasonTier 季節係数の区分
+     * @return 季節係数[‰]
+     */
+    public int getSeasonCoefficientPerMille(int seasonTier) {
+        return seasons.getCoefficientPerMilleOfTier(seasonTier);
+    }
+
+    /**
+     * 都道府県間の距離に応じた料金を取得する。
+     *
+     * @param prefectureIdFrom 引っ越し元の都道府県
+     * @param prefectureIdTo   引越し先の都道府県
+     * @param seasonTier       季節係数の区分
+     * @return 季節係数を掛けた料金[1/1000円]
+     * @throws IllegalArgumentException 距離が登録されていない組み合わせの場合
+     */
+    public long getDistancePrice(String prefectureIdFrom, String prefectureIdTo, int seasonTier) {
+        int from = PrefectureDistanceIndex.toIndex(prefectureIdFrom);
+        int to = PrefectureDistanceIndex.toIndex(prefectureIdTo);
+        long price = from < size && to < size ? distancePrices[seasonTier * size * size + from * size + to] : UNKNOWN;
+        if (price == UNKNOWN) {
+            throw new IllegalArgumentException("都道府県間の距離が登録されていません。from="
+                    + prefectureIdFrom + ", to=" + prefectureIdTo);
+        }
+        return price;
+    }
+
+    /**
+     * 距離に応じた料金を取得する。郵便番号の緯度経度から求めた距離など、都道府県間の距離以外に使う。
+     *
+     * @param distance   距離[km]
+     * @param seasonTier 季節係数の区分
+     * @return 季節係数を掛けた料金[1/1000円]
+     */
+    public long getDistancePrice(double distance, int seasonTier) {
+        return toDistancePrice(distance, seasons.getCoefficientPerMilleOfTier(seasonTier));
+    }
+
+    /**
+     * 段ボール数に応じたトラック料金を取得する。
+     *
+     * @param boxNum     総段ボール数
+     * @param seasonTier 季節係数の区分
+     * @return 季節係数を掛けた料金[1/1000円]
+     */
+    public long getCargoPrice(int boxNum, int seasonTier) {
+        return Math.multiplyExact(trucks.getPrice(boxNum), seasons.getCoefficientPerMilleOfTier(seasonTier));
+    }
+
+    /**
+     * 段ボール数に応じたトラック料金を取得する。
+     *
+     * @param boxNum 総段ボール数
+     * @return 季節係数を掛ける前の料金[円]
+     */
+    public long getPricePerTruck(int boxNum) {
+        return trucks.getPrice(boxNum);
+    }
+
+    /**
+     * 荷物ごとの段ボール数を取得する。
+     *
+     * @param packageId 荷物ID
+     * @return 段ボール数
+     */
+    public int getBoxPerPackage(int packageId) {
+        if (packageId < 0 || packageId >= boxPerPackage.length) {
+            throw new IllegalArgumentException("荷物IDが存在しません。packageId=" + packageId);
+        }
+        return boxPerPackage[packageId];
+    }
+
+    /**
+     * オプションサービスの料金を取得する。
+     *
+     * @param serviceId サービスID
+     * @return 料金[円]
+     */
+    public int getPricePerOptionalService(int serviceId) {
+        int price = serviceId >= 0 && serviceId < optionPrices.length ? optionPrices[serviceId] : NO_SERVICE;
+        if (price == NO_SERVICE) {
+            throw new IllegalArgumentException("オプションサービスが存在しません。serviceId=" + serviceId);
+        }
+        return price;
+    }
+
+    /**
+     * 料金表を書き出す。数値はすべてビッグエンディアンで、配列は要素数に続けて要素を書き出す。
+     * <pre>
+     * 都道府県の行列の一辺の長さ(int),
+     * 季節係数(int[]), 平日の区分(byte[]), 土日・祝日の区分(byte[]), 祝日(long[]),
+     * 距離の料金(long[]),
+     * 段ボール数ごとの最小料金(int[]), 最も安いトラックの料金(int), 周期の段ボール数(int), 周期ごとの料金(int),
+     * 荷物ごとの段ボール数(int[]), オプションサービスの料金(int[])
+     * </pre>
+     *
+     * @param out 書き出し先
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        writeInts(out, seasons.getCoefficients());
+        writeBytes(out, seasons.getWeekdayTiers());
+        writeBytes(out, seasons.getHolidayTiers());
+        long[] holidays = seasons.getHolidays();
+        out.writeInt(holidays.length);
+        for (long holiday : holidays) {
+            out.writeLong(holiday);
+        }
+        out.writeInt(distancePrices.length);
+        for (long price : distancePrices) {
+            out.writeLong(price);
+        }
+        writeInts(out, trucks.getMinPrice());
+        out.writeInt(trucks.getCheapestPrice());
+        out.writeInt(trucks.getPeriodBox());
+        out.writeInt(trucks.getPeriodPrice());
+        writeInts(out, boxPerPackage);
+        writeInts(out, optionPrices);
+    }
+
+    /**
+     * {@link #writeTo(DataOutputStream)}で書き出した料金表を読み込む。
+     *
+     * @param in 読み込み元
+     * @return 料金表
+     * @throws IOException 入出力エラーが発生した場合、または形式が不正な場合
+     */
+    static QuoteTable readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        int[] coefficients = readInts(in);
+        byte[] weekdayTiers = readBytes(in);
+        byte[] holidayTiers = readBytes(in);
+        long[] holidays = new long[readLength(in)];
+        for (int i = 0; i < holidays.length; i++) {
+            holidays[i] = in.readLong();
+        }
+        long[] distancePrices = new long[readLength(in)];
+        for (int i = 0; i < distancePrices.length; i++) {
+            distancePrices[i] = in.readLong();
+        }
+        int[] minPrice = readInts(in);
+        int cheapestPrice = in.readInt();
+        int periodBox = in.readInt();
+        int periodPrice = in.readInt();
+        int[] boxPerPackage = readInts(in);
+        int[] optionPrices = readInts(in);
+        try {
+            SeasonCalendar seasons = new SeasonCalendar(coefficients, weekdayTiers, holidayTiers, holidays);
+            if (size <= 0 || distancePrices.length != (long) seasons.getTierCount() * size * size) {
+                throw new IllegalArgumentException("距離の料金の表の大きさが不正です。");
+            }
+            return new QuoteTable(size, seasons, distancePrices,
+                    new TruckAllocationEngine(minPrice, cheapestPrice, periodBox, periodPrice),
+                    boxPerPackage, optionPrices);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("料金表の形式が不正です。", e);
+        }
+    }
+
+    /**
+     * 距離に季節係数を掛けた料金を求める。距離の小数点以下は切り捨てる。
+     *
+     * @param distance    距離[km]
+     * @param coefficient 季節係数[‰]
+     * @return 料金[1/1000円]
+     */
+    private static long toDistancePrice(double distance, int coefficient) {
+        return Math.multiplyExact(Math.multiplyExact((long) Math.floor(distance), PRICE_PER_DISTANCE), coefficient);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+        out.writeInt(values.length);
+        out.write(values);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[readLength(in)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] values = new byte[readLength(in)];
+        in.readFully(values);
+        return values;
+    }
+
+    /**
+     * 配列の要素数を読み込む。
+     *
+     * @param in 読み込み元
+     * @return 要素数
+     * @throws IOException 要素数が不正な場合
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 26) {
+            throw new IOException("料金表の形式が不正です。length=" + length);
+        }
+        return length;
+    }
+}
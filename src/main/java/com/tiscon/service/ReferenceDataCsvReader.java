@@ -0,0 +1,323 @@
+package com.tiscon.service;
+
+import com.tiscon.code.OptionalServiceType;
+import com.tiscon.code.PackageType;
+import com.tiscon.domain.Holiday;
+import com.tiscon.domain.OptionalService;
+import com.tiscon.domain.PackageBox;
+import com.tiscon.domain.Prefecture;
+import com.tiscon.domain.PrefectureDistance;
+import com.tiscon.domain.SeasonCoefficient;
+import com.tiscon.domain.TruckCapacity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 参照データのCSV(resources/data と同じ形式)を読み込み、スナップショットを作成するクラス。
+ * <p>
+ * 指定したディレクトリにあるCSVを読み込み、ないファイルはクラスパスのCSV(data.sqlが読み込むもの)を使う。
+ * 各ファイルは1行目を見出しとして読み飛ばし、列はテーブルの列の順に並んでいるものとする。
+ * 列数・数値・日付・IDの重複・存在しない都道府県の参照などを精査し、不正な場合はファイル名と行番号を含む例外を発生させる。
+ */
+final class ReferenceDataCsvReader {
+
+    static final String PREFECTURE = "PREFECTURE.csv";
+
+    static final String PREFECTURE_DISTANCE = "PREFECTURE_DISTANCE.csv";
+
+    static final String OPTIONAL_SERVICE = "OPTIONAL_SERVICE.csv";
+
+    static final String PACKAGE_BOX = "PACKAGE_BOX.csv";
+
+    static final String TRUCK_CAPACITY = "TRUCK_CAPACITY.csv";
+
+    static final String SEASON_COEFFICIENT = "SEASON_COEFFICIENT.csv";
+
+    static final String HOLIDAY = "HOLIDAY.csv";
+
+    /** 参照データのCSVのファイル名 */
+    static final List<String> FILE_NAMES = List.of(PREFECTURE, PREFECTURE_DISTANCE, OPTIONAL_SERVICE,
+            PACKAGE_BOX, TRUCK_CAPACITY, SEASON_COEFFICIENT, HOLIDAY);
+
+    /** クラスパスのCSVの場所 */
+    private static final String CLASSPATH_DIRECTORY = "data/";
+
+    /** CSVを読み込むディレクトリ */
+    private final Path directory;
+
+    /** トラック料金を事前に計算する段ボール数の上限 */
+    private final int truckTableCeiling;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param directory         CSVを読み込むディレクトリ
+     * @param truckTableCeiling トラック料金を事前に計算する段ボール数の上限
+     */
+    ReferenceDataCsvReader(Path directory, int truckTableCeiling) {
+        this.directory = directory;
+        this.truckTableCeiling = truckTableCeiling;
+    }
+
+    /**
+     * ディレクトリに参照データのCSVが1つでもあるかどうかを判定する。
+     *
+     * @return CSVがある場合はtrue
+     */
+    boolean hasAnyFile() {
+        return FILE_NAMES.stream().anyMatch(name -> Files.isRegularFile(directory.resolve(name)));
+    }
+
+    /**
+     * CSVを読み込んでスナップショットを作成する。
+     *
+     * @return スナップショット
+     * @throws IOException              CSVを読み込めなかった場合
+     * @throws IllegalArgumentException CSVの内容が不正な場合
+     */
+    PricingSnapshot read() throws IOException {
+        List<Prefecture> prefectures = read(PREFECTURE, 2, row -> {
+            Prefecture prefecture = new Prefecture();
+            prefecture.setPrefectureId(prefectureId(row[0]));
+            prefecture.setPrefectureName(row[1]);
+            return prefecture;
+        });
+        Set<String> prefectureIds = unique(PREFECTURE, prefectures, Prefecture::getPrefectureId);
+
+        List<PrefectureDistance> distances = read(PREFECTURE_DISTANCE, 3, row -> {
+            PrefectureDistance distance = new PrefectureDistance();
+            distance.setPrefectureIdFrom(knownPrefecture(prefectureIds, row[0]));
+            distance.setPrefectureIdTo(knownPrefecture(prefectureIds, row[1]));
+            distance.setDistance(nonNegative(Double.parseDouble(row[2])));
+            return distance;
+        });
+        unique(PREFECTURE_DISTANCE, distances,
+                distance -> distance.getPrefectureIdFrom() + "-" + distance.getPrefectureIdTo());
+
+        List<OptionalService> optionalServices = read(OPTIONAL_SERVICE, 3, row -> {
+            OptionalService service = new OptionalService();
+            service.setServiceId(nonNegative(Integer.parseInt(row[0])));
+            service.setServiceName(row[1]);
+            service.setPrice(nonNegative(Integer.parseInt(row[2])));
+            return service;
+        });
+        Set<Integer> serviceIds = unique(OPTIONAL_SERVICE, optionalServices, OptionalService::getServiceId);
+        for (OptionalServiceType type : OptionalServiceType.values()) {
+            require(serviceIds.contains(type.getCode()), OPTIONAL_SERVICE, "サービスID " + type.getCode() + " がありません");
+        }
+
+        List<PackageBox> packageBoxes = read(PACKAGE_BOX, 3, row -> {
+            PackageBox packageBox = new PackageBox();
+            packageBox.setPackageId(nonNegative(Integer.parseInt(row[0])));
+            packageBox.setBox(nonNegative(Integer.parseInt(row[1])));
+            packageBox.setPackageName(row[2]);
+            return packageBox;
+        });
+        Set<Integer> packageIds = unique(PACKAGE_BOX, packageBoxes, PackageBox::getPackageId);
+        for (PackageType type : PackageType.values()) {
+            require(packageIds.contains(type.getCode()), PACKAGE_BOX, "荷物ID " + type.getCode() + " がありません");
+        }
+
+        List<TruckCapacity> trucks = read(TRUCK_CAPACITY, 4, row -> {
+            TruckCapacity truck = new TruckCapacity();
+            truck.setTruckId(Integer.parseInt(row[0]));
+            truck.setTruckType(row[1]);
+            truck.setMaxBox(positive(Integer.parseInt(row[2])));
+            truck.setPrice(nonNegative(Integer.parseInt(row[3])));
+            return truck;
+        });
+        unique(TRUCK_CAPACITY, trucks, TruckCapacity::getTruckId);
+        require(!trucks.isEmpty(), TRUCK_CAPACITY, "トラックがありません");
+
+        List<SeasonCoefficient> seasons = read(SEASON_COEFFICIENT, 5, row -> {
+            SeasonCoefficient season = new SeasonCoefficient();
+            season.setSeasonId(Integer.parseInt(row[0]));
+            season.setStartMonthDay(monthDay(row[1]));
+            season.setEndMonthDay(monthDay(row[2]));
+            season.setCoefficient(positive(Double.parseDouble(row[3])));
+            season.setHolidayCoefficient(positive(Double.parseDouble(row[4])));
+            return season;
+        });
+        unique(SEASON_COEFFICIENT, seasons, SeasonCoefficient::getSeasonId);
+
+        List<Holiday> holidays = read(HOLIDAY, 2, row -> {
+            Holiday holiday = new Holiday();
+            holiday.setHolidayDate(LocalDate.parse(row[0]));
+            holiday.setHolidayName(row[1]);
+            return holiday;
+        });
+        unique(HOLIDAY, holidays, Holiday::getHolidayDate);
+
+        return new PricingSnapshot(prefectures, distances, packageBoxes, trucks, optionalServices, seasons, holidays,
+                truckTableCeiling);
+    }
+
+    /**
+     * CSVを1行ずつ読み込み、オブジェクトに変換する。
+     *
+     * @param fileName CSVのファイル名
+     * @param columns  列数
+     * @param mapper   1行の値をオブジェクトに変換する関数
+     * @param <T>      オブジェクトの型
+     * @return オブジェクトの一覧
+     * @throws IOException CSVを読み込めなかった場合
+     */
+    private <T> List<T> read(String fileName, int columns, Function<String[], T> mapper) throws IOException {
+        List<T> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(fileName), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            int lineNumber = 1;
+            for (String line; (line = reader.readLine()) != null; ) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] row = split(line);
+                if (row.length != columns) {
+                    throw invalid(fileName, lineNumber, columns + "列ではありません");
+                }
+                try {
+                    result.add(mapper.apply(row));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    throw invalid(fileName, lineNumber, e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    private InputStream open(String fileName) throws IOException {
+        Path file = directory.resolve(fileName);
+        if (Files.isRegularFile(file)) {
+            return Files.newInputStream(file);
+        }
+        InputStream in = ReferenceDataCsvReader.class.getClassLoader().getResourceAsStream(CLASSPATH_DIRECTORY + fileName);
+        if (in == null) {
+            throw new IOException("参照データのCSVがありません。file=" + fileName);
+        }
+        return in;
+    }
+
+    /**
+     * CSVの1行を列に分ける。ダブルクォートで囲んだ値(""はダブルクォート1文字)を扱い、各値の前後の空白は取り除く。
+     */
+    static String[] split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int start = line.startsWith("\uFEFF") ? 1 : 0;
+        for (int i = start; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString().trim());
+        return values.toArray(new String[0]);
+    }
+
+    private static <T, K> Set<K> unique(String fileName, List<T> rows, Function<T, K> key) {
+        Set<K> keys = new HashSet<>();
+        for (T row : rows) {
+            if (!keys.add(key.apply(row))) {
+                throw new IllegalArgumentException("参照データのCSVが不正です。file=" + fileName
+                        + ", IDが重複しています。id=" + key.apply(row));
+            }
+        }
+        require(!keys.isEmpty() || HOLIDAY.equals(fileName), fileName, "データがありません");
+        return keys;
+    }
+
+    private static void require(boolean condition, String fileName, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException("参照データのCSVが不正です。file=" + fileName + ", " + message);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String fileName, int lineNumber, String message) {
+        return new IllegalArgumentException("参照データのCSVが不正です。file=" + fileName
+                + ", line=" + lineNumber + ", " + message);
+    }
+
+    /**
+     * 都道府県ID(ゼロ埋めの2桁)を精査する。
+     */
+    private static String prefectureId(String value) {
+        PrefectureDistanceIndex.toIndex(value);
+        if (value.length() != 2) {
+            throw new IllegalArgumentException("都道府県IDは2桁で指定してください。prefectureId=" + value);
+        }
+        return value;
+    }
+
+    private static String knownPrefecture(Set<String> prefectureIds, String value) {
+        if (!prefectureIds.contains(value)) {
+            throw new IllegalArgumentException("都道府県が登録されていません。prefectureId=" + value);
+        }
+        return value;
+    }
+
+    /**
+     * 月日(MM-dd)を精査する。
+     */
+    private static String monthDay(String value) {
+        MonthDay.parse("--" + value);
+        return value;
+    }
+
+    private static int nonNegative(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("負の値は指定できません。value=" + value);
+        }
+        return value;
+    }
+
+    private static double nonNegative(double value) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("0以上の値を指定してください。value=" + value);
+        }
+        return value;
+    }
+
+    private static int positive(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("正の値を指定してください。value=" + value);
+        }
+        return value;
+    }
+
+    private static double positive(double value) {
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("正の値を指定してください。value=" + value);
+        }
+        return value;
+    }
+}
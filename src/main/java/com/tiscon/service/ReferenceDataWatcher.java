@@ -0,0 +1,161 @@
+package com.tiscon.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参照データのCSVを置くディレクトリを監視し、CSVが変更された場合に参照データを差し替えるクラス。
+ * <p>
+ * CSVの読み込み・精査・料金表の作成は監視用のスレッドで行い、見積もりのリクエストを処理するスレッドでは行わない。
+ * 変更を検知してから一定時間(静止時間)新たな変更がなくなるまで待ってから読み込むため、
+ * 複数のCSVをまとめて置き換える場合も、途中の状態で差し替えることはない。
+ * CSVの内容が不正な場合はエラーを記録し、現在有効な参照データを使い続ける。
+ * <p>
+ * 起動時にディレクトリにCSVがある場合は、DBの参照データの代わりにCSVを読み込む。
+ * 再起動せずに料金を変更できるよう、遅延初期化の設定でも起動時に監視を開始する。
+ */
+@Component
+@Lazy(false)
+public class ReferenceDataWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataWatcher.class);
+
+    private final PricingSnapshotHolder pricingSnapshotHolder;
+
+    /** 監視するディレクトリ。設定されていない場合はnull */
+    private final Path directory;
+
+    /** 変更を検知してから読み込むまでの静止時間 */
+    private final Duration quietPeriod;
+
+    private final ReferenceDataCsvReader reader;
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param pricingSnapshotHolder PricingSnapshotHolderクラス
+     * @param directory             参照データのCSVを置くディレクトリ。空の場合は監視しない
+     * @param quietPeriod           変更を検知してから読み込むまでの静止時間
+     * @param truckTableCeiling     トラック料金を事前に計算する段ボール数の上限
+     */
+    public ReferenceDataWatcher(PricingSnapshotHolder pricingSnapshotHolder,
+                                @Value("${estimate.reference-data.directory:}") String directory,
+                                @Value("${estimate.reference-data.quiet-period:1s}") Duration quietPeriod,
+                                @Value("${estimate.truck.table-ceiling:1000}") int truckTableCeiling) {
+        this.pricingSnapshotHolder = pricingSnapshotHolder;
+        this.directory = directory.isEmpty() ? null : Paths.get(directory).toAbsolutePath();
+        this.quietPeriod = quietPeriod;
+        this.reader = this.directory == null ? null : new ReferenceDataCsvReader(this.directory, truckTableCeiling);
+    }
+
+    /**
+     * ディレクトリにCSVがあれば読み込み、監視用のスレッドを開始する。
+     *
+     * @throws IOException ディレクトリを監視できない場合
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        // 監視を開始してから読み込むことで、読み込み中の変更を取りこぼさない。
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        if (reader.hasAnyFile()) {
+            load();
+        }
+        watcher = new Thread(this::run, "reference-data-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        LOGGER.info("参照データのCSVの監視を開始しました。directory={}", directory);
+    }
+
+    /**
+     * 監視用のスレッドを停止する。
+     *
+     * @throws IOException          監視を終了できない場合
+     * @throws InterruptedException 停止を待つ間に割り込まれた場合
+     */
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        watcher.join();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // 静止時間の間に変更がなくなるまで待つ
+                while ((key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    load();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // 停止した
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 検知した変更を取り出し、参照データのCSVが変更されたかどうかを判定する。
+     */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            } else {
+                changed |= ReferenceDataCsvReader.FILE_NAMES.contains(event.context().toString());
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * CSVを読み込み、参照データを差し替える。CSVの内容が不正な場合は差し替えない。
+     */
+    private void load() {
+        long started = System.nanoTime();
+        try {
+            PricingSnapshot loaded = reader.read();
+            long version = pricingSnapshotHolder.replace(loaded);
+            LOGGER.info("参照データのCSVを読み込みました。directory={}, version={}, elapsed={}ms", directory, version,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("参照データのCSVを読み込めなかったため、現在の参照データを使い続けます。directory={}, version={}",
+                    directory, pricingSnapshotHolder.getVersion(), e);
+        }
+    }
+}
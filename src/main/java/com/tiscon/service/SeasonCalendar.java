@@ -0,0 +1,335 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.Holiday;
+import com.tiscon.domain.SeasonCoefficient;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 引っ越し日に応じた季節係数を求めるクラス。
+ * <p>
+ * 係数は「月日」ごとの表(うるう年を基準とした366日分)で保持し、土日・祝日には休日用の係数を使う。
+ * 料金を整数で正確に計算できるよう、係数は1000倍した整数(‰)で保持する。
+ * 表には係数そのものではなく、異なる係数ごとに振った区分(0始まり)を格納する。
+ * 区分の数は季節の設定数程度と小さいため、料金表({@link QuoteTable})は区分ごとに事前計算できる。
+ * 引っ越し日の文字列(yyyy-MM-dd)は1文字ずつ数値に変換するため、計算の際にオブジェクトを生成しない。
+ */
+public final class SeasonCalendar {
+
+    /** 季節の設定がない日の係数[‰] */
+    static final int DEFAULT_COEFFICIENT_PER_MILLE = 1000;
+
+    /** うるう年の各月1日の通し番号(0始まり)。添字は月 - 1 */
+    private static final int[] FIRST_DAY_OF_MONTH = {0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335, 366};
+
+    /** 1年の月日の数(うるう年を基準とする) */
+    static final int DAYS_OF_YEAR = 366;
+
+    /** 区分の最大数 */
+    private static final int MAX_TIERS = 256;
+
+    /** 区分ごとの係数[‰]の昇順。添字は区分 */
+    private final int[] coefficients;
+
+    /** 平日の係数の区分(符号なし)。添字は月日の通し番号 */
+    private final byte[] weekdayTiers;
+
+    /** 土日・祝日の係数の区分(符号なし)。添字は月日の通し番号 */
+    private final byte[] holidayTiers;
+
+    /** 季節の設定がない日の係数の区分 */
+    private final int defaultTier;
+
+    /** 祝日。1970-01-01からの日数の昇順 */
+    private final long[] holidays;
+
+    /**
+     * コンストラクタ。
+     * 期間が重なる場合は季節IDの大きい設定を優先する。
+     *
+     * @param seasons  季節ごとの係数
+     * @param holidays 祝日
+     */
+    public SeasonCalendar(List<SeasonCoefficient> seasons, List<Holiday> holidays) {
+        int[] weekdayCoefficients = new int[DAYS_OF_YEAR];
+        int[] holidayCoefficients = new int[DAYS_OF_YEAR];
+        Arrays.fill(weekdayCoefficients, DEFAULT_COEFFICIENT_PER_MILLE);
+        Arrays.fill(holidayCoefficients, DEFAULT_COEFFICIENT_PER_MILLE);
+        seasons.stream()
+                .sorted(Comparator.comparingInt(SeasonCoefficient::getSeasonId))
+                .forEach(season -> apply(season, weekdayCoefficients, holidayCoefficients));
+
+        this.coefficients = IntStream.concat(IntStream.of(DEFAULT_COEFFICIENT_PER_MILLE),
+                IntStream.concat(Arrays.stream(weekdayCoefficients), Arrays.stream(holidayCoefficients)))
+                .distinct()
+                .sorted()
+                .toArray();
+        if (coefficients.length > MAX_TIERS) {
+            throw new IllegalArgumentException("季節係数の種類が多すぎます。count=" + coefficients.length);
+        }
+        this.weekdayTiers = toTiers(weekdayCoefficients);
+        this.holidayTiers = toTiers(holidayCoefficients);
+        this.defaultTier = Arrays.binarySearch(coefficients, DEFAULT_COEFFICIENT_PER_MILLE);
+        this.holidays = holidays.stream()
+                .mapToLong(holiday -> holiday.getHolidayDate().toEpochDay())
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * 区分ごとの表から復元する({@link QuoteTable}のファイルの読み込み用)。
+     *
+     * @param coefficients 区分ごとの係数[‰]の昇順
+     * @param weekdayTiers 平日の係数の区分
+     * @param holidayTiers 土日・祝日の係数の区分
+     * @param holidays     祝日。1970-01-01からの日数の昇順
+     */
+    SeasonCalendar(int[] coefficients, byte[] weekdayTiers, byte[] holidayTiers, long[] holidays) {
+        if (coefficients.length == 0 || coefficients.length > MAX_TIERS
+                || weekdayTiers.length != DAYS_OF_YEAR || holidayTiers.length != DAYS_OF_YEAR) {
+            throw new IllegalArgumentException("季節係数の表が不正です。");
+        }
+        for (int day = 0; day < DAYS_OF_YEAR; day++) {
+            if (Byte.toUnsignedInt(weekdayTiers[day]) >= coefficients.length
+                    || Byte.toUnsignedInt(holidayTiers[day]) >= coefficients.length) {
+                throw new IllegalArgumentException("季節係数の区分が不正です。day=" + day);
+            }
+        }
+        this.coefficients = coefficients;
+        this.weekdayTiers = weekdayTiers;
+        this.holidayTiers = holidayTiers;
+        this.defaultTier = Arrays.binarySearch(coefficients, DEFAULT_COEFFICIENT_PER_MILLE);
+        if (defaultTier < 0) {
+            throw new IllegalArgumentException("季節の設定がない日の係数が含まれていません。");
+        }
+        this.holidays = holidays;
+    }
+
+    /**
+     * 季節の係数を表に反映する。開始月日が終了月日より後の場合は年をまたぐ期間とする。
+     *
+     * @param season              季節ごとの係数
+     * @param weekdayCoefficients 平日の係数[‰]
+     * @param holidayCoefficients 土日・祝日の係数[‰]
+     */
+    private static void apply(SeasonCoefficient season, int[] weekdayCoefficients, int[] holidayCoefficients) {
+        int start = parseMonthDay(season.getStartMonthDay());
+        int end = parseMonthDay(season.getEndMonthDay());
+        int coefficient = toPerMille(season.getCoefficient());
+        int holidayCoefficient = toPerMille(season.getHolidayCoefficient());
+        for (int day = start; ; day = (day + 1) % DAYS_OF_YEAR) {
+            weekdayCoefficients[day] = coefficient;
+            holidayCoefficients[day] = holidayCoefficient;
+            if (day == end) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 月日ごとの係数を区分に変換する。
+     *
+     * @param dailyCoefficients 月日ごとの係数[‰]
+     * @return 月日ごとの区分
+     */
+    private byte[] toTiers(int[] dailyCoefficients) {
+        byte[] tiers = new byte[DAYS_OF_YEAR];
+        for (int day = 0; day < DAYS_OF_YEAR; day++) {
+            tiers[day] = (byte) Arrays.binarySearch(coefficients, dailyCoefficients[day]);
+        }
+        return tiers;
+    }
+
+    /**
+     * 区分の数を取得する。
+     *
+     * @return 区分の数
+     */
+    public int getTierCount() {
+        return coefficients.length;
+    }
+
+    /**
+     * 区分の係数を取得する。
+     *
+     * @param tier 区分
+     * @return 季節係数[‰]
+     */
+    public int getCoefficientPerMilleOfTier(int tier) {
+        return coefficients[tier];
+    }
+
+    /**
+     * 引っ越し日の季節係数を取得する。
+     *
+     * @param movingDate 引っ越し日(yyyy-MM-dd)
+     * @return 季節係数[‰]。日付として解釈できない場合は1000
+     */
+    public int getCoefficientPerMille(String movingDate) {
+        return coefficients[getTier(movingDate)];
+    }
+
+    /**
+     * 引っ越し日の季節係数を取得する。
+     *
+     * @param movingDate 引っ越し日
+     * @return 季節係数[‰]
+     */
+    public int getCoefficientPerMille(LocalDate movingDate) {
+        return coefficients[getTier(movingDate)];
+    }
+
+    /**
+     * 引っ越し日の季節係数の区分を取得する。
+     *
+     * @param movingDate 引っ越し日(yyyy-MM-dd)
+     * @return 区分。日付として解釈できない場合は季節の設定がない日の区分
+     */
+    public int getTier(String movingDate) {
+        if (movingDate == null || movingDate.length() != 10
+                || movingDate.charAt(4) != '-' || movingDate.charAt(7) != '-') {
+            return defaultTier;
+        }
+        int year = digits(movingDate, 0, 4);
+        int month = digits(movingDate, 5, 7);
+        int day = digits(movingDate, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return defaultTier;
+        }
+        return getTier(year, month, day);
+    }
+
+    /**
+     * 引っ越し日の季節係数の区分を取得する。
+     *
+     * @param movingDate 引っ越し日
+     * @return 区分
+     */
+    public int getTier(LocalDate movingDate) {
+        return getTier(movingDate.getYear(), movingDate.getMonthValue(), movingDate.getDayOfMonth());
+    }
+
+    /**
+     * 引っ越し日の季節係数の区分を取得する。
+     *
+     * @param year  年
+     * @param month 月
+     * @param day   日
+     * @return 区分
+     */
+    public int getTier(int year, int month, int day) {
+        int index = FIRST_DAY_OF_MONTH[month - 1] + day - 1;
+        long epochDay = toEpochDay(year, month, day);
+        // 1970-01-01は木曜日のため、3を足すと月曜日が0になる。
+        int dayOfWeek = (int) Math.floorMod(epochDay + 3, 7L);
+        boolean holiday = dayOfWeek >= 5 || Arrays.binarySearch(holidays, epochDay) >= 0;
+        return Byte.toUnsignedInt(holiday ? holidayTiers[index] : weekdayTiers[index]);
+    }
+
+    int[] getCoefficients() {
+        return coefficients;
+    }
+
+    byte[] getWeekdayTiers() {
+        return weekdayTiers;
+    }
+
+    byte[] getHolidayTiers() {
+        return holidayTiers;
+    }
+
+    long[] getHolidays() {
+        return holidays;
+    }
+
+    /**
+     * 係数を1000倍した整数に変換する。DBの係数は小数点以下3桁までとし、それより細かい桁は四捨五入する。
+     *
+     * @param coefficient 係数
+     * @return 係数[‰]
+     */
+    private static int toPerMille(double coefficient) {
+        if (!(coefficient >= 0) || coefficient > Integer.MAX_VALUE / 1000) {
+            throw new IllegalArgumentException("季節係数が不正です。coefficient=" + coefficient);
+        }
+        return (int) Math.round(coefficient * 1000);
+    }
+
+    /**
+     * 月日(MM-dd)をうるう年を基準とした通し番号に変換する。
+     *
+     * @param monthDay 月日
+     * @return 通し番号
+     */
+    private static int parseMonthDay(String monthDay) {
+        int month = monthDay != null && monthDay.length() == 5 && monthDay.charAt(2) == '-' ? digits(monthDay, 0, 2) : -1;
+        int day = month > 0 ? digits(monthDay, 3, 5) : -1;
+        if (month < 1 || month > 12 || day < 1 || day > FIRST_DAY_OF_MONTH[month] - FIRST_DAY_OF_MONTH[month - 1]) {
+            throw new IllegalArgumentException("月日が不正です。monthDay=" + monthDay);
+        }
+        return FIRST_DAY_OF_MONTH[month - 1] + day - 1;
+    }
+
+    /**
+     * 文字列の指定範囲の数字を数値に変換する。
+     *
+     * @param value 文字列
+     * @param from  開始位置
+     * @param to    終了位置(この位置の文字は含まない)
+     * @return 数値。数字以外が含まれる場合は-1
+     */
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * 月の日数を返却する。
+     *
+     * @param year  年
+     * @param month 月
+     * @return 月の日数
+     */
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return FIRST_DAY_OF_MONTH[month] - FIRST_DAY_OF_MONTH[month - 1];
+    }
+
+    /**
+     * 年月日を1970-01-01からの日数に変換する({@link java.time.LocalDate#toEpochDay()}と同じ計算)。
+     *
+     * @param year  年
+     * @param month 月
+     * @param day   日
+     * @return 1970-01-01からの日数
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            if (!leap) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tiscon.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import java.io.IOException;
 
 
@@ -10,7 +12,7 @@ import java.io.IOException;
 
 public class Test {
     public static void main(String[] args){
-        PostalCodeService pcs = new PostalCodeService();
+        PostalCodeService pcs = new PostalCodeService(new SimpleMeterRegistry());
         Response response1;
         Response response2;
 
@@ -26,7 +28,7 @@ public class Test {
             // 埼玉県所沢市の住所を取得
             response2 = pcs.getResponse("3590000");
 
-            int dis = Distance.getDistance(response1.getLatitude(), response1.getLongitude(), response2.getLatitude(), response2.getLongitude());
+            double dis = Distance.getDistanceKm(response1.getLatitude(), response1.getLongitude(), response2.getLatitude(), response2.getLongitude());
             System.out.println(dis);
         } catch (IOException e) {
             // networkによるエラー発生時
@@ -0,0 +1,171 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.TruckCapacity;
+
+import java.util.List;
+
+/**
+ * 段ボール数に対して最も安いトラックの組み合わせの料金を求めるクラス。
+ * <p>
+ * 段ボール数ごとの最小料金を動的計画法で上限まで事前に計算しておく。
+ * 段ボール数が十分に大きくなると、最小料金は「料金/最大搭載段ボール数」が最も小さいトラックを
+ * 1台増やすごとに一定額ずつ増える(周期性がある)ため、上限を超える段ボール数はその周期を使って定数時間で求める。
+ */
+public final class TruckAllocationEngine {
+
+    /** 周期性が確認できるまで表を広げる際の上限 */
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    /** 段ボール数ごとの最小料金[円]。添字は段ボール数 */
+    private final int[] minPrice;
+
+    /** 最も安いトラックの料金[円](段ボールが0個でもトラックは1台手配する) */
+    private final int cheapestPrice;
+
+    /** 周期の段ボール数(最も割安なトラックの最大搭載段ボール数) */
+    private final int periodBox;
+
+    /** 周期ごとに増える料金[円](最も割安なトラックの料金) */
+    private final int periodPrice;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param trucks  トラックの積載量と料金
+     * @param ceiling 最小料金を事前に計算する段ボール数の上限。周期性が確認できない場合は自動的に広げる
+     */
+    public TruckAllocationEngine(List<TruckCapacity> trucks, int ceiling) {
+        if (trucks.isEmpty()) {
+            throw new IllegalArgumentException("トラックが登録されていません。");
+        }
+        int[] maxBox = new int[trucks.size()];
+        int[] price = new int[trucks.size()];
+        int maxCap = 0;
+        int cheapest = Integer.MAX_VALUE;
+        int best = 0;
+        for (int i = 0; i < trucks.size(); i++) {
+            TruckCapacity truck = trucks.get(i);
+            if (truck.getMaxBox() <= 0 || truck.getPrice() < 0) {
+                throw new IllegalArgumentException("トラックの積載量または料金が不正です。truckId=" + truck.getTruckId());
+            }
+            maxBox[i] = truck.getMaxBox();
+            price[i] = truck.getPrice();
+            maxCap = Math.max(maxCap, maxBox[i]);
+            cheapest = Math.min(cheapest, price[i]);
+            // 段ボール1個あたりの料金が最も安いトラック。同じ場合は大きい方
+            long lhs = (long) price[i] * maxBox[best];
+            long rhs = (long) price[best] * maxBox[i];
+            if (lhs < rhs || (lhs == rhs && maxBox[i] > maxBox[best])) {
+                best = i;
+            }
+        }
+        this.cheapestPrice = cheapest;
+        this.periodBox = maxBox[best];
+        this.periodPrice = price[best];
+
+        int size = Math.max(ceiling, 2 * maxCap) + 1;
+        int[] table = fill(maxBox, price, size);
+        while (!isPeriodic(table, maxCap)) {
+            if (size >= MAX_TABLE_SIZE) {
+                throw new IllegalStateException("トラック料金の周期性を確認できませんでした。");
+            }
+            size = (int) Math.min((long) size * 2, MAX_TABLE_SIZE);
+            table = fill(maxBox, price, size);
+        }
+        this.minPrice = table;
+    }
+
+    /**
+     * 事前に計算した表から復元する({@link QuoteTable}のファイルの読み込み用)。
+     *
+     * @param minPrice      段ボール数ごとの最小料金[円]
+     * @param cheapestPrice 最も安いトラックの料金[円]
+     * @param periodBox     周期の段ボール数
+     * @param periodPrice   周期ごとに増える料金[円]
+     */
+    TruckAllocationEngine(int[] minPrice, int cheapestPrice, int periodBox, int periodPrice) {
+        if (minPrice.length == 0 || periodBox <= 0 || periodPrice < 0 || cheapestPrice < 0) {
+            throw new IllegalArgumentException("トラック料金の表が不正です。");
+        }
+        this.minPrice = minPrice;
+        this.cheapestPrice = cheapestPrice;
+        this.periodBox = periodBox;
+        this.periodPrice = periodPrice;
+    }
+
+    /**
+     * 段ボール数に応じたトラック料金を取得する。
+     *
+     * @param boxNum 総段ボール数
+     * @return 料金[円]
+     */
+    public long getPrice(int boxNum) {
+        if (boxNum <= 0) {
+            return cheapestPrice;
+        }
+        int last = minPrice.length - 1;
+        if (boxNum <= last) {
+            return minPrice[boxNum];
+        }
+        // 上限を超える分は、最も割安なトラックを周期の台数だけ追加する。
+        long periods = ((long) boxNum - last + periodBox - 1) / periodBox;
+        return minPrice[(int) (boxNum - periods * periodBox)] + periods * periodPrice;
+    }
+
+    int[] getMinPrice() {
+        return minPrice;
+    }
+
+    int getCheapestPrice() {
+        return cheapestPrice;
+    }
+
+    int getPeriodBox() {
+        return periodBox;
+    }
+
+    int getPeriodPrice() {
+        return periodPrice;
+    }
+
+    /**
+     * 段ボール数ごとの最小料金を動的計画法で計算する。
+     *
+     * @param maxBox トラックごとの最大搭載段ボール数
+     * @param price  トラックごとの料金
+     * @param size   表の大きさ
+     * @return 段ボール数ごとの最小料金
+     */
+    private static int[] fill(int[] maxBox, int[] price, int size) {
+        int[] table = new int[size];
+        for (int box = 1; box < size; box++) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < maxBox.length; i++) {
+                min = Math.min(min, (long) price[i] + table[Math.max(0, box - maxBox[i])]);
+            }
+            table[box] = Math.toIntExact(min);
+        }
+        return table;
+    }
+
+    /**
+     * 表の末尾で周期性が成り立っているかを判定する。
+     * 最大のトラックの積載量分だけ連続して周期性が成り立てば、漸化式によりそれ以降もすべて成り立つ。
+     *
+     * @param table  段ボール数ごとの最小料金
+     * @param maxCap 最大のトラックの最大搭載段ボール数
+     * @return 周期性が成り立っている場合はtrue
+     */
+    private boolean isPeriodic(int[] table, int maxCap) {
+        int last = table.length - 1;
+        if (last - maxCap - periodBox < maxCap) {
+            return false;
+        }
+        for (int box = last - maxCap + 1; box <= last; box++) {
+            if (table[box] != table[box - periodBox] + periodPrice) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
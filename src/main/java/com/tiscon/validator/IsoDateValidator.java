@@ -0,0 +1,78 @@
+package com.tiscon.validator;
+
+import org.springframework.util.ObjectUtils;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+
+public class IsoDateValidator implements ConstraintValidator<IsoDate, String> {
+    @Override
+    public void initialize(IsoDate constraintAnnotation) {
+    }
+
+    @Override
+    public boolean isValid(String s, ConstraintValidatorContext constraintValidatorContext) {
+        return isIsoDate(s);
+    }
+
+    /**
+     * 日付(yyyy-MM-dd)の形式で、存在する日付かどうかを判定する。未入力の場合は判定しない(trueを返却する)。
+     * 4桁の年は例外を発生させずに判定し、それ以外の形式は{@link LocalDate#parse(CharSequence)}で判定する。
+     *
+     * @param s 文字列
+     * @return 存在する日付の場合、または未入力の場合はtrue
+     */
+    public static boolean isIsoDate(String s) {
+        if (ObjectUtils.isEmpty(s)) {
+            return true;
+        }
+        if (s.length() != 10) {
+            // 符号付きの年など、入力画面では使われない形式
+            return parses(s);
+        }
+        if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return false;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        switch (month) {
+            case 2:
+                return day <= (Year.isLeap(year) ? 29 : 28);
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return day <= 30;
+            default:
+                return day <= 31;
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean parses(String s) {
+        try {
+            LocalDate.parse(s);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.tiscon.validator;
 
-import org.springframework.util.ObjectUtils;
-
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
@@ -12,9 +10,25 @@ public class NumericValidator implements ConstraintValidator<Numeric, String> {
 
     @Override
     public boolean isValid(String s, ConstraintValidatorContext constraintValidatorContext) {
-        if (ObjectUtils.isEmpty(s)) {
+        return isNumeric(s);
+    }
+
+    /**
+     * 半角数字だけで構成されているかどうかを判定する。未入力の場合は判定しない(trueを返却する)。
+     *
+     * @param s 文字列
+     * @return 半角数字だけの場合、または未入力の場合はtrue
+     */
+    public static boolean isNumeric(String s) {
+        if (s == null) {
             return true;
         }
-        return s.matches("[0-9]*");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,40 @@
+package com.tiscon.validator;
+
+import org.springframework.util.ObjectUtils;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class PostalCodeValidator implements ConstraintValidator<PostalCode, String> {
+    @Override
+    public void initialize(PostalCode constraintAnnotation) {
+    }
+
+    @Override
+    public boolean isValid(String s, ConstraintValidatorContext constraintValidatorContext) {
+        return isPostalCode(s);
+    }
+
+    /**
+     * 郵便番号(123-4567 または 1234567)の形式かどうかを判定する。未入力の場合は判定しない(trueを返却する)。
+     *
+     * @param s 文字列
+     * @return 郵便番号の形式の場合、または未入力の場合はtrue
+     */
+    public static boolean isPostalCode(String s) {
+        if (ObjectUtils.isEmpty(s)) {
+            return true;
+        }
+        int length = s.length();
+        if (length == 8 && s.charAt(3) != '-' || length != 7 && length != 8) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && !(length == 8 && i == 3)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.tiscon.validator;
+
+import com.tiscon.form.UserOrderForm;
+import org.hibernate.validator.internal.constraintvalidators.bv.EmailValidator;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.util.ResourceBundle;
+
+/**
+ * 顧客が入力した見積もり依頼情報({@link UserOrderForm})を精査するクラス。
+ * <p>
+ * 概算見積もり・申し込みのたびに実行するため、Bean Validationのようにアノテーションをリフレクションで読み取らず、
+ * 項目ごとの規則(各Validatorの判定メソッド)を直接呼び出す。メールアドレスは{@link javax.validation.constraints.Email}と
+ * 同じ判定になるよう、Hibernate Validatorの{@link EmailValidator}を1つ生成して共有する。
+ * エラーコード(NotBlank・Email・Numeric・PostalCode・IsoDate)とメッセージ(ValidationMessages.properties)は
+ * Bean Validationで精査していたときと同じものを使う。
+ */
+@Component
+public class UserOrderFormValidator implements Validator {
+
+    private static final String NOT_BLANK = "NotBlank";
+
+    private static final String EMAIL = "Email";
+
+    private static final String NUMERIC = "Numeric";
+
+    private static final String POSTAL_CODE = "PostalCode";
+
+    private static final String ISO_DATE = "IsoDate";
+
+    /** メールアドレスの判定。状態を持たないため、すべての精査で共有する */
+    private static final EmailValidator EMAIL_VALIDATOR = new EmailValidator();
+
+    private static final ResourceBundle MESSAGES = ResourceBundle.getBundle("ValidationMessages");
+
+    private static final String NOT_BLANK_MESSAGE = MESSAGES.getString("javax.validation.constraints.NotBlank.message");
+
+    private static final String EMAIL_MESSAGE = MESSAGES.getString("javax.validation.constraints.Email.message");
+
+    private static final String NUMERIC_MESSAGE = MESSAGES.getString("intern.Numeric.message");
+
+    private static final String POSTAL_CODE_MESSAGE = MESSAGES.getString("intern.PostalCode.message");
+
+    private static final String ISO_DATE_MESSAGE = MESSAGES.getString("intern.IsoDate.message");
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return UserOrderForm.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        UserOrderForm form = (UserOrderForm) target;
+        requireText(errors, "customerName", form.getCustomerName());
+        requireNumeric(errors, "tel", form.getTel());
+        requireText(errors, "email", form.getEmail());
+        if (!EMAIL_VALIDATOR.isValid(form.getEmail(), null)) {
+            reject(errors, "email", EMAIL, EMAIL_MESSAGE);
+        }
+        if (!PostalCodeValidator.isPostalCode(form.getOldPostalCode())) {
+            reject(errors, "oldPostalCode", POSTAL_CODE, POSTAL_CODE_MESSAGE);
+        }
+        requireText(errors, "oldPrefectureId", form.getOldPrefectureId());
+        requireText(errors, "oldAddress", form.getOldAddress());
+        if (!PostalCodeValidator.isPostalCode(form.getNewPostalCode())) {
+            reject(errors, "newPostalCode", POSTAL_CODE, POSTAL_CODE_MESSAGE);
+        }
+        requireText(errors, "newPrefectureId", form.getNewPrefectureId());
+        requireText(errors, "newAddress", form.getNewAddress());
+        requireNumeric(errors, "box", form.getBox());
+        requireNumeric(errors, "bed", form.getBed());
+        requireNumeric(errors, "bicycle", form.getBicycle());
+        requireNumeric(errors, "washingMachine", form.getWashingMachine());
+        requireText(errors, "movingDate", form.getMovingDate());
+        if (!IsoDateValidator.isIsoDate(form.getMovingDate())) {
+            reject(errors, "movingDate", ISO_DATE, ISO_DATE_MESSAGE);
+        }
+    }
+
+    /**
+     * 空白以外の文字が入力されていることを精査する(@NotBlank)。
+     */
+    private static void requireText(Errors errors, String field, String value) {
+        if (isBlank(value)) {
+            reject(errors, field, NOT_BLANK, NOT_BLANK_MESSAGE);
+        }
+    }
+
+    /**
+     * 空白以外の文字が入力され、半角数字だけであることを精査する(@NotBlank・@Numeric)。
+     */
+    private static void requireNumeric(Errors errors, String field, String value) {
+        requireText(errors, field, value);
+        if (!NumericValidator.isNumeric(value)) {
+            reject(errors, field, NUMERIC, NUMERIC_MESSAGE);
+        }
+    }
+
+    /**
+     * 空白(制御文字を含む)だけの文字列かどうかを判定する。{@link String#trim()}と同じ文字を空白とみなす。
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reject(Errors errors, String field, String code, String message) {
+        Object[] arguments = {new DefaultMessageSourceResolvable(
+                new String[]{errors.getObjectName() + Errors.NESTED_PATH_SEPARATOR + field, field}, field)};
+        errors.rejectValue(field, code, arguments, message);
+    }
+}
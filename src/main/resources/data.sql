@@ -1,5 +1,7 @@
-MERGE INTO PREFECTURE SELECT * FROM CSVREAD('classpath:/data/PREFECTURE.csv');
-MERGE INTO PREFECTURE_DISTANCE SELECT * FROM CSVREAD('classpath:/data/PREFECTURE_DISTANCE.csv');
-MERGE INTO OPTIONAL_SERVICE SELECT * FROM CSVREAD('classpath:/data/OPTIONAL_SERVICE.csv');
-MERGE INTO PACKAGE_BOX SELECT * FROM CSVREAD('classpath:/data/PACKAGE_BOX.csv');
-MERGE INTO TRUCK_CAPACITY SELECT * FROM CSVREAD('classpath:/data/TRUCK_CAPACITY.csv');
\ No newline at end of file
+MERGE INTO PREFECTURE SELECT * FROM CSVREAD('classpath:/data/PREFECTURE.csv', NULL, 'charset=UTF-8');
+MERGE INTO PREFECTURE_DISTANCE SELECT * FROM CSVREAD('classpath:/data/PREFECTURE_DISTANCE.csv', NULL, 'charset=UTF-8');
+MERGE INTO OPTIONAL_SERVICE SELECT * FROM CSVREAD('classpath:/data/OPTIONAL_SERVICE.csv', NULL, 'charset=UTF-8');
+MERGE INTO PACKAGE_BOX SELECT * FROM CSVREAD('classpath:/data/PACKAGE_BOX.csv', NULL, 'charset=UTF-8');
+MERGE INTO TRUCK_CAPACITY SELECT * FROM CSVREAD('classpath:/data/TRUCK_CAPACITY.csv', NULL, 'charset=UTF-8');
+MERGE INTO SEASON_COEFFICIENT SELECT * FROM CSVREAD('classpath:/data/SEASON_COEFFICIENT.csv', NULL, 'charset=UTF-8');
+MERGE INTO HOLIDAY SELECT * FROM CSVREAD('classpath:/data/HOLIDAY.csv', NULL, 'charset=UTF-8');
\ No newline at end of file
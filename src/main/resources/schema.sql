@@ -7,7 +7,7 @@ CREATE TABLE IF NOT EXISTS PREFECTURE
 
 CREATE TABLE IF NOT EXISTS CUSTOMER
 (
-    CUSTOMER_ID                     INT NOT NULL AUTO_INCREMENT,
+    CUSTOMER_ID                     INT NOT NULL,
     OLD_PREFECTURE_ID               CHAR(2) NOT NULL,
     NEW_PREFECTURE_ID               CHAR(2) NOT NULL,
     CUSTOMER_NAME                   VARCHAR(60) NOT NULL,
@@ -15,7 +15,7 @@ CREATE TABLE IF NOT EXISTS CUSTOMER
     EMAIL                           VARCHAR(256) NOT NULL,
     OLD_ADDRESS                     VARCHAR(200) NOT NULL,
     NEW_ADDRESS                     VARCHAR(200) NOT NULL,
-    MOVING_DATE                     VARCHAR(60) NOT NULL,
+    MOVING_DATE                     DATE NOT NULL,
     PRIMARY KEY (CUSTOMER_ID)
 );
 
@@ -54,6 +54,10 @@ CREATE TABLE IF NOT EXISTS CUSTOMER_PACKAGE
     FOREIGN KEY(PACKAGE_ID) REFERENCES PACKAGE_BOX(PACKAGE_ID)
 );
 
+CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_MOVING_DATE ON CUSTOMER(MOVING_DATE);
+
+CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_PACKAGE_CUSTOMER_ID ON CUSTOMER_PACKAGE(CUSTOMER_ID);
+
 CREATE TABLE IF NOT EXISTS TRUCK_CAPACITY
 (
     TRUCK_ID                        INT NOT NULL,
@@ -75,3 +79,40 @@ CREATE TABLE IF NOT EXISTS PREFECTURE_DISTANCE
 );
 
 
+CREATE TABLE IF NOT EXISTS SEASON_COEFFICIENT
+(
+    SEASON_ID                       INT NOT NULL,
+    START_MONTH_DAY                 CHAR(5) NOT NULL,
+    END_MONTH_DAY                   CHAR(5) NOT NULL,
+    COEFFICIENT                     DOUBLE NOT NULL,
+    HOLIDAY_COEFFICIENT             DOUBLE NOT NULL,
+    PRIMARY KEY (SEASON_ID)
+);
+
+CREATE TABLE IF NOT EXISTS HOLIDAY
+(
+    HOLIDAY_DATE                    DATE NOT NULL,
+    HOLIDAY_NAME                    VARCHAR(50) NOT NULL,
+    PRIMARY KEY (HOLIDAY_DATE)
+);
+
+CREATE TABLE IF NOT EXISTS ORDER_JOURNAL_CHECKPOINT
+(
+    JOURNAL_ID                      INT NOT NULL,
+    LAST_SEQUENCE                   BIGINT NOT NULL,
+    PRIMARY KEY (JOURNAL_ID)
+);
+
+CREATE TABLE IF NOT EXISTS REFERENCE_DATA_CHECKSUM
+(
+    ID                              INT NOT NULL,
+    CHECKSUM                        VARCHAR(64) NOT NULL,
+    LOADED_AT                       TIMESTAMP NOT NULL,
+    PRIMARY KEY (ID)
+);
+
+CREATE SEQUENCE IF NOT EXISTS CUSTOMER_ID_SEQ START WITH 1;
+
+ALTER TABLE CUSTOMER ALTER COLUMN CUSTOMER_ID DROP DEFAULT;
+
+ALTER TABLE CUSTOMER ALTER COLUMN MOVING_DATE DATE NOT NULL;
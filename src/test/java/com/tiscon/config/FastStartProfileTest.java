@@ -0,0 +1,163 @@
+package com.tiscon.config;
+
+import com.tiscon.InternApplication;
+import com.tiscon.dto.PriceBreakdown;
+import com.tiscon.dto.UserOrderDto;
+import com.tiscon.service.EstimateService;
+import com.tiscon.service.PricingSnapshotHolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 起動を速くする設定(fast-startプロファイル)のテスト。
+ * <p>
+ * 同じJVMで続けて起動するとクラスを読み込み済みのため起動時間を正しく計れない。そこで同じJVMでは時間を検証せず、
+ * Beanの遅延初期化と参照データの遅延読み込みが有効になっていることを確かめる。
+ * 起動から最初の見積もりまでの時間は新しいJVMで起動して計測し、{@link StartupTimer}のログから読み取る。
+ * 時間の上限はシステムプロパティ(estimate.startup.max-first-quote-millis)を指定した場合だけ検証する。
+ * 詳しい計測はベンチマーク(StartupBenchmark)で行う。
+ */
+class FastStartProfileTest {
+
+    /** 起動から最初の見積もりを返却するまでの時間の上限[ミリ秒]。指定しない場合は検証しない */
+    private static final Long MAX_FIRST_QUOTE_MILLIS = Long.getLong("estimate.startup.max-first-quote-millis");
+
+    /** {@link StartupTimer}が出力する、最初の見積もりを返却するまでの時間のログ */
+    private static final Pattern FIRST_QUOTE_LOG = Pattern.compile("最初の見積もりを返却しました。JVMの起動から(\\d+)ms");
+
+    /** 新しいJVMで最初の見積もりを返却した際に出力する料金 */
+    private static final Pattern PRICE_OUTPUT = Pattern.compile("price=(\\d+)");
+
+    @Test
+    void fastStartDefersBeansAndReferenceData() throws InterruptedException {
+        StartedState started = new StartedState();
+        try (ConfigurableApplicationContext context = start("fast-start", "fast-start-lazy", started)) {
+            // 遅延初期化が有効なため、起動の時点では一括見積もりのBeanを生成せず、参照データも読み込まない
+            assertThat(started.batchEstimateServiceCreated).isFalse();
+            assertThat(started.referenceDataLoaded).isFalse();
+
+            // 要求を受け付けられるようになった後、見積もりの要求がなくてもバックグラウンドで参照データを読み込む
+            PricingSnapshotHolder holder = context.getBean(PricingSnapshotHolder.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!holder.isLoaded() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(holder.isLoaded()).isTrue();
+
+            assertThat(context.getBean(EstimateService.class).getPrice(order()).getPrice()).isEqualTo(107250);
+            assertThat(context.getBeanFactory().containsSingleton("batchEstimateService")).isFalse();
+        }
+    }
+
+    @Test
+    void defaultProfileInitializesEagerly() {
+        StartedState started = new StartedState();
+        try (ConfigurableApplicationContext context = start("default", "default-eager", started)) {
+            assertThat(started.batchEstimateServiceCreated).isTrue();
+            assertThat(started.referenceDataLoaded).isTrue();
+            assertThat(context.getBean(EstimateService.class).getPrice(order()).getPrice()).isEqualTo(107250);
+        }
+    }
+
+    @Test
+    @Timeout(value = 3, unit = TimeUnit.MINUTES)
+    void firstQuoteInNewJvm() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dfile.encoding=UTF-8",
+                // 本番と同じ条件で計測するため、Developer Toolsによる再起動は無効にする
+                "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"),
+                FirstQuote.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            process.destroyForcibly();
+        }
+        assertThat(process.waitFor()).as(output).isZero();
+
+        Matcher price = PRICE_OUTPUT.matcher(output);
+        assertThat(price.find()).as(output).isTrue();
+        assertThat(Long.parseLong(price.group(1))).isEqualTo(107250);
+        Matcher firstQuote = FIRST_QUOTE_LOG.matcher(output);
+        assertThat(firstQuote.find()).as(output).isTrue();
+        if (MAX_FIRST_QUOTE_MILLIS != null) {
+            assertThat(Long.parseLong(firstQuote.group(1))).isLessThanOrEqualTo(MAX_FIRST_QUOTE_MILLIS);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile, String database,
+                                                        ApplicationListener<?>... listeners) {
+        return new SpringApplicationBuilder(InternApplication.class)
+                .profiles(profile)
+                .listeners(listeners)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.main.banner-mode=off",
+                        "--estimate.order.write-behind.enabled=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.com.tiscon.config.StartupTimer=info");
+    }
+
+    private static UserOrderDto order() {
+        UserOrderDto dto = new UserOrderDto();
+        dto.setOldPrefectureId("13");
+        dto.setNewPrefectureId("27");
+        dto.setBox("10");
+        dto.setBed("1");
+        dto.setBicycle("1");
+        dto.setWashingMachine("1");
+        dto.setWashingMachineInstallation(true);
+        dto.setMovingDate(LocalDate.of(2021, 3, 20));
+        return dto;
+    }
+
+    /**
+     * 起動の時点(要求を受け付けられるようになる前)に、Beanと参照データが初期化済みかどうかを記録する。
+     */
+    private static final class StartedState implements ApplicationListener<ApplicationStartedEvent> {
+
+        private volatile boolean batchEstimateServiceCreated;
+
+        private volatile boolean referenceDataLoaded;
+
+        @Override
+        public void onApplicationEvent(ApplicationStartedEvent event) {
+            ConfigurableApplicationContext context = event.getApplicationContext();
+            batchEstimateServiceCreated = context.getBeanFactory().containsSingleton("batchEstimateService");
+            referenceDataLoaded = context.getBean(PricingSnapshotHolder.class).isLoaded();
+        }
+    }
+
+    /**
+     * 新しいJVMでfast-startプロファイルのアプリケーションを起動し、最初の見積もりを返却して終了する。
+     */
+    static final class FirstQuote {
+
+        public static void main(String[] args) {
+            ConfigurableApplicationContext context = start("fast-start", "first-quote");
+            PriceBreakdown price = context.getBean(EstimateService.class).getPrice(order());
+            System.out.println("price=" + price.getPrice());
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.tiscon.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link Distance} のテスト。距離による料金が変わらないよう、従来の計算(球面三角法・赤道半径)と同じ距離になることを確かめる。
+ */
+class DistanceTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            // 東京駅 - 大阪駅
+            "35.6812, 139.7671, 34.7025, 135.4959, 403",
+            // 札幌駅 - 那覇空港
+            "43.0687, 141.3508, 26.2124, 127.6792, 2249",
+            // 博多駅 - 仙台駅
+            "33.5902, 130.4207, 38.2601, 140.8821, 1075",
+            // 名古屋市内の近い2点
+            "35.1730990, 136.883466, 35.1855732, 136.899092, 1",
+    })
+    void getDistance(double lat1, double lng1, double lat2, double lng2, int expected) {
+        assertThat(Distance.getDistance(lat1, lng1, lat2, lng2)).isEqualTo(expected);
+        assertThat(Distance.getDistance(lat1, lng1, lat2, lng2)).isEqualTo(sphericalLawOfCosines(lat1, lng1, lat2, lng2));
+    }
+
+    /**
+     * 変更前の計算式(球面三角法、地球赤道半径6378140メートル)。
+     */
+    private static int sphericalLawOfCosines(double lat1, double lng1, double lat2, double lng2) {
+        double rlat1 = Math.toRadians(lat1);
+        double rlat2 = Math.toRadians(lat2);
+        double a = Math.sin(rlat1) * Math.sin(rlat2)
+                + Math.cos(rlat1) * Math.cos(rlat2) * Math.cos(Math.toRadians(lng1) - Math.toRadians(lng2));
+        return (int) (6378140 * Math.acos(a) / 1000);
+    }
+}
@@ -0,0 +1,199 @@
+package com.tiscon.service;
+
+import com.tiscon.dao.EstimateDao;
+import com.tiscon.dto.UserOrderDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link OrderWriteBehindService} のテスト。DBの代わりに登録した申し込みと登録済みの連番をメモリに記録し、
+ * 受け付けた申し込みが失われず、二重にも登録されないことを確かめる。
+ */
+class OrderWriteBehindServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final EstimateService estimateService = mock(EstimateService.class);
+
+    private final EstimateDao estimateDao = mock(EstimateDao.class);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    /** DBに登録した申し込みの氏名(登録した順) */
+    private final List<String> registered = Collections.synchronizedList(new ArrayList<>());
+
+    /** DBに記録した登録済みの最後の連番 */
+    private final AtomicLong checkpoint = new AtomicLong();
+
+    /** DBに接続できない状態かどうか */
+    private final AtomicBoolean unavailable = new AtomicBoolean();
+
+    @BeforeEach
+    void setUpDatabase() {
+        doAnswer(invocation -> {
+            if (unavailable.get()) {
+                throw new CannotGetJdbcConnectionException("DBに接続できません");
+            }
+            List<UserOrderDto> orders = invocation.getArgument(0);
+            if (orders.stream().anyMatch(order -> "poison".equals(order.getCustomerName()))) {
+                throw new IllegalStateException("登録できない申し込み");
+            }
+            orders.forEach(order -> registered.add(order.getCustomerName()));
+            return null;
+        }).when(estimateService).registerOrders(anyList());
+        when(estimateDao.getOrderJournalCheckpoint(1)).thenAnswer(invocation -> checkpoint.get());
+        when(estimateDao.updateOrderJournalCheckpoint(eq(1), anyLong())).thenAnswer(invocation -> {
+            checkpoint.set(invocation.getArgument(1));
+            return 1;
+        });
+    }
+
+    private OrderWriteBehindService start(int batchSize) throws IOException {
+        OrderWriteBehindService service = new OrderWriteBehindService(estimateService, estimateDao,
+                transactionManager, true, directory.toString(), batchSize, Duration.ofMillis(20));
+        service.start();
+        return service;
+    }
+
+    private static UserOrderDto order(String customerName) {
+        UserOrderDto dto = new UserOrderDto();
+        dto.setCustomerName(customerName);
+        dto.setOldPrefectureId("13");
+        dto.setNewPrefectureId("27");
+        dto.setBox("10");
+        dto.setBed("1");
+        dto.setBicycle("0");
+        dto.setWashingMachine("1");
+        dto.setWashingMachineInstallation(false);
+        return dto;
+    }
+
+    @Test
+    void concurrentSubmitsAreRegisteredExactlyOnce() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 500;
+        OrderWriteBehindService service = start(16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                ready.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    service.submit(order(thread + "-" + i));
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        service.shutdown();
+
+        List<String> expected = IntStream.range(0, threads).boxed()
+                .flatMap(thread -> IntStream.range(0, ordersPerThread).mapToObj(i -> thread + "-" + i))
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(registered.stream().sorted().collect(Collectors.toList())).isEqualTo(expected);
+        assertThat(checkpoint).hasValue((long) threads * ordersPerThread);
+        try (OrderJournal journal = OrderJournal.open(directory, checkpoint.get())) {
+            assertThat(journal.getPending()).isEmpty();
+        }
+    }
+
+    @Test
+    void pendingOrdersAreReplayedAfterRestart() throws Exception {
+        unavailable.set(true);
+        OrderWriteBehindService service = start(16);
+        for (int i = 1; i <= 10; i++) {
+            service.submit(order(String.valueOf(i)));
+        }
+        // DBに接続できないまま停止する。受け付けた申し込みはジャーナルに残る
+        service.shutdown();
+        assertThat(registered).isEmpty();
+        assertThat(checkpoint).hasValue(0);
+
+        unavailable.set(false);
+        start(16).shutdown();
+
+        assertThat(registered).containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+        assertThat(checkpoint).hasValue(10);
+    }
+
+    @Test
+    void onlyUncommittedOrdersAreReplayed() throws Exception {
+        try (OrderJournal journal = OrderJournal.open(directory, 0)) {
+            for (int i = 1; i <= 5; i++) {
+                journal.append(order(String.valueOf(i)));
+            }
+        }
+        // 2件目までは登録済みで、登録後に停止した状態
+        checkpoint.set(2);
+
+        start(16).shutdown();
+
+        assertThat(registered).containsExactly("3", "4", "5");
+        assertThat(checkpoint).hasValue(5);
+    }
+
+    @Test
+    void orderThatCannotBeRegisteredIsRejectedWithoutBlockingLaterOrders() throws Exception {
+        OrderWriteBehindService service = start(16);
+        service.submit(order("a"));
+        service.submit(order("poison"));
+        service.submit(order("b"));
+        service.shutdown();
+
+        assertThat(registered).containsExactly("a", "b");
+        assertThat(checkpoint).hasValue(3);
+        assertThat(Files.readAllLines(directory.resolve("rejected-orders.ndjson"), StandardCharsets.UTF_8))
+                .singleElement().asString().contains("\"customerName\":\"poison\"");
+    }
+
+    @Test
+    void transientFailureIsRetried() throws Exception {
+        unavailable.set(true);
+        OrderWriteBehindService service = start(16);
+        service.submit(order("a"));
+        Thread.sleep(100);
+        unavailable.set(false);
+        service.submit(order("b"));
+        service.shutdown();
+
+        assertThat(registered).containsExactly("a", "b");
+        assertThat(checkpoint).hasValue(2);
+    }
+}
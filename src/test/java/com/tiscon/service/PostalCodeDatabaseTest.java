@@ -0,0 +1,141 @@
+package com.tiscon.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link PostalCodeDatabase} のテスト。{@link PostalCodeDatabaseCompiler} で変換したファイルを開いて検索できること、
+ * 途中で切れたファイルや壊れたファイルは開く時点でエラーになることを確かめる。
+ */
+class PostalCodeDatabaseTest {
+
+    /** KEN_ALL.CSVと同じ列の並びに緯度と経度を追加したCSV */
+    private static final List<String> CSV = Arrays.asList(
+            "全国地方公共団体コード,旧郵便番号,郵便番号,都道府県名カナ,市区町村名カナ,町域名カナ,都道府県名,市区町村名,町域名,緯度,経度",
+            "13101,\"100  \",\"1000001\",\"ﾄｳｷｮｳﾄ\",\"ﾁﾖﾀﾞｸ\",\"ﾁﾖﾀﾞ\",\"東京都\",\"千代田区\",\"千代田\",35.685175,139.753634",
+            "27127,\"530  \",\"5300001\",\"ｵｵｻｶﾌ\",\"ｵｵｻｶｼｷﾀｸ\",\"ｳﾒﾀﾞ\",\"大阪府\",\"大阪市北区\",\"梅田\",34.702485,135.495951",
+            "01101,\"060  \",\"0600000\",\"ﾎｯｶｲﾄﾞｳ\",\"ｻｯﾎﾟﾛｼﾁｭｳｵｳｸ\",\"ｲｶﾆｹｲｻｲｶﾞﾅｲﾊﾞｱｲ\",\"北海道\",\"札幌市中央区\","
+                    + "\"以下に掲載がない場合\",43.055460,141.340956",
+            "13101,\"100  \",\"1000005\",\"ﾄｳｷｮｳﾄ\",\"ﾁﾖﾀﾞｸ\",\"ﾏﾙﾉｳﾁ(ﾂｷﾞﾉﾋﾞﾙｦﾉｿﾞｸ)\",\"東京都\",\"千代田区\","
+                    + "\"丸の内（次のビルを除く）\",35.681236,139.767125",
+            "13101,\"100  \",\"1000005\",\"ﾄｳｷｮｳﾄ\",\"ﾁﾖﾀﾞｸ\",\"ﾏﾙﾉｳﾁ\",\"東京都\",\"千代田区\",\"丸の内, 地階\","
+                    + "35.681236,139.767125");
+
+    @TempDir
+    Path directory;
+
+    private Path database;
+
+    @BeforeEach
+    void compile() throws IOException {
+        Path csv = directory.resolve("KEN_ALL_LATLNG.CSV");
+        Files.write(csv, CSV, StandardCharsets.UTF_8);
+        database = directory.resolve("postal-code.db");
+        assertThat(PostalCodeDatabaseCompiler.compile(csv, StandardCharsets.UTF_8, database)).isEqualTo(5);
+    }
+
+    @Test
+    void compiledDatabaseCanBeSearched() throws IOException {
+        PostalCodeDatabase db = PostalCodeDatabase.open(database);
+
+        assertThat(db.size()).isEqualTo(5);
+        Location location = single(db.find("5300001"));
+        assertThat(location.postal).isEqualTo("5300001");
+        assertThat(location.prefecture).isEqualTo("大阪府");
+        assertThat(location.city).isEqualTo("大阪市北区");
+        assertThat(location.city_kana).isEqualTo("ｵｵｻｶｼｷﾀｸ");
+        assertThat(location.town).isEqualTo("梅田");
+        assertThat(location.town_kana).isEqualTo("ｳﾒﾀﾞ");
+        assertThat(location.y).isEqualTo(34.702485f);
+        assertThat(location.x).isEqualTo(135.495951f);
+
+        // 先頭・末尾のレコードも二分探索で見つかる
+        assertThat(single(db.find("0600000")).town).isEqualTo("以下に掲載がない場合");
+        assertThat(single(db.find("1000001")).town).isEqualTo("千代田");
+    }
+
+    @Test
+    void allTownsOfSamePostalCodeAreReturned() throws IOException {
+        PostalCodeDatabase db = PostalCodeDatabase.open(database);
+
+        assertThat(db.find("1000005").response.location)
+                .extracting(location -> location.town)
+                .containsExactlyInAnyOrder("丸の内（次のビルを除く）", "丸の内, 地階");
+    }
+
+    @Test
+    void unknownOrMalformedPostalCodeReturnsNoLocation() throws IOException {
+        PostalCodeDatabase db = PostalCodeDatabase.open(database);
+
+        assertThat(db.find("9999999").response.location).isEmpty();
+        assertThat(db.find("0000000").response.location).isEmpty();
+        assertThat(db.find("100-0001").response.location).isEmpty();
+        assertThat(db.find(null).response.location).isEmpty();
+    }
+
+    @Test
+    void truncatedFileIsRejectedAtOpen() throws IOException {
+        byte[] bytes = Files.readAllBytes(database);
+        // ヘッダーの途中・レコードの途中・文字列位置の途中・文字列の途中で切れたファイル
+        for (int length : new int[]{8, 16 + 32 * 2, 16 + 32 * 5 + 4, bytes.length - 1}) {
+            Path truncated = directory.resolve("truncated-" + length + ".db");
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+
+            assertThatThrownBy(() -> PostalCodeDatabase.open(truncated))
+                    .as("length=%d", length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void corruptHeaderIsRejectedAtOpen() throws IOException {
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(8, Integer.MAX_VALUE)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(8, -1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(12, Integer.MAX_VALUE)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(0, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(4, PostalCodeDatabase.VERSION + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void corruptStringOffsetIsRejectedAtOpen() throws IOException {
+        // 2番目の文字列の開始位置を、文字列の領域を超える値にする
+        int stringIndexOffset = 16 + 32 * 5;
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(stringIndexOffset + Integer.BYTES, Integer.MAX_VALUE)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PostalCodeDatabase.open(modify(stringIndexOffset, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 変換したファイルの指定した位置のintを書き換えたファイルを作る。
+     */
+    private Path modify(int position, int value) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(database));
+        bytes.putInt(position, value);
+        Path modified = directory.resolve("modified.db");
+        Files.write(modified, bytes.array());
+        return modified;
+    }
+
+    private static Location single(Response response) {
+        assertThat(response.response.location).hasSize(1);
+        return response.response.location.get(0);
+    }
+}
@@ -0,0 +1,165 @@
+package com.tiscon.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link PostalCodeService} のテスト。郵便番号検索APIの代わりにローカルのHTTPサーバーを起動し、
+ * 期限・ヘッジ要求・サーキットブレーカー・キャッシュの動作を確かめる。
+ */
+class PostalCodeServiceTest {
+
+    /** APIの応答。郵便番号をそのまま返却する */
+    private static final String RESPONSE = "{\"response\":{\"location\":[{\"city\":\"千代田区\",\"town\":\"千代田\","
+            + "\"x\":\"139.753634\",\"y\":\"35.685175\",\"prefecture\":\"東京都\",\"postal\":\"%s\"}]}}";
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    /** サーバーが受け付けた要求の数 */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /** 最初の要求だけ応答を遅らせる時間[ミリ秒] */
+    private volatile long firstRequestDelayMillis;
+
+    /** すべての要求の応答を遅らせる時間[ミリ秒] */
+    private volatile long delayMillis;
+
+    /** 応答のステータスコード */
+    private volatile int status = 200;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api", this::handle);
+        // 応答を遅らせている間も他の要求を受け付けられるよう、要求ごとにスレッドを使う
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int count = requests.incrementAndGet();
+        try {
+            Thread.sleep(count == 1 ? firstRequestDelayMillis + delayMillis : delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        String query = exchange.getRequestURI().getQuery();
+        byte[] body = String.format(RESPONSE, query.substring(query.indexOf('=') + 1)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private PostalCodeService service(Duration timeout, Duration hedgeDelay, int failureThreshold,
+                                      Duration openDuration) {
+        String apiUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/api?postal=";
+        return new PostalCodeService(apiUrl, 100, Duration.ofHours(1), timeout, hedgeDelay, failureThreshold,
+                openDuration, "", meterRegistry);
+    }
+
+    @Test
+    void cachedResponseIsReturnedWithoutCallingApi() throws IOException {
+        PostalCodeService service = service(Duration.ofSeconds(3), Duration.ofSeconds(1), 5, Duration.ofSeconds(30));
+
+        Response first = service.getResponse("1000001");
+        Response second = service.getResponse("100-0001");
+
+        assertThat(first.response.location.get(0).postal).isEqualTo("1000001");
+        assertThat(second).isSameAs(first);
+        assertThat(requests).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "postal-code").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void lookupFailsWhenDeadlinePasses() {
+        delayMillis = 2_000;
+        // ヘッジ要求までの待ち時間が期限より長いため、ヘッジ要求は送らない
+        PostalCodeService service = service(Duration.ofMillis(300), Duration.ofSeconds(1), 5, Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.getResponseAsync("1000001").get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_500);
+        assertThatThrownBy(() -> service.getResponse("1000002")).isInstanceOf(IOException.class);
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void hedgedRequestWinsOverSlowPrimary() throws IOException {
+        firstRequestDelayMillis = 2_000;
+        PostalCodeService service = service(Duration.ofSeconds(3), Duration.ofMillis(100), 5, Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        Response response = service.getResponse("1000001");
+
+        assertThat(response.response.location.get(0).postal).isEqualTo("1000001");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_500);
+        assertThat(requests).hasValue(2);
+        assertThat(meterRegistry.get("estimate.postal.api.hedged").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void circuitBreakerOpensAfterFailuresAndRecovers() throws Exception {
+        status = 500;
+        PostalCodeService service = service(Duration.ofSeconds(3), Duration.ofSeconds(1), 3, Duration.ofMillis(500));
+
+        for (int i = 0; i < 3; i++) {
+            String postalCode = "100000" + i;
+            assertThatThrownBy(() -> service.getResponse(postalCode)).isInstanceOf(IOException.class);
+        }
+        assertThat(requests).hasValue(3);
+        assertThat(meterRegistry.get("estimate.postal.circuit-breaker.open").gauge().value()).isEqualTo(1);
+
+        // 開いている間はAPIを呼び出さない
+        assertThatThrownBy(() -> service.getResponse("1000009")).isInstanceOf(IOException.class);
+        assertThat(requests).hasValue(3);
+        assertThat(meterRegistry.get("estimate.postal.api.rejected").counter().count()).isEqualTo(1);
+
+        // 開いている時間が過ぎると試しに呼び出し、成功すれば閉じる
+        status = 200;
+        Thread.sleep(600);
+        assertThat(service.getResponse("1000009").response.location.get(0).postal).isEqualTo("1000009");
+        assertThat(requests).hasValue(4);
+        assertThat(meterRegistry.get("estimate.postal.circuit-breaker.open").gauge().value()).isEqualTo(0);
+        assertThat(service.getResponse("1000010").response.location.get(0).postal).isEqualTo("1000010");
+        assertThat(requests).hasValue(5);
+    }
+}
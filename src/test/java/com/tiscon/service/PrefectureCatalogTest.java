@@ -0,0 +1,83 @@
+package com.tiscon.service;
+
+import com.tiscon.domain.Prefecture;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link PrefectureCatalog} のテスト。入力画面の選択肢が、従来の画面に直接書いていた選択肢と同じになることを確かめる。
+ */
+class PrefectureCatalogTest {
+
+    /** 従来の入力画面の選択肢の表示名(都道府県コードの順) */
+    private static final List<String> EXPECTED_LABELS = List.of(
+            "北海道", "青森県", "岩手県", "宮城県", "秋田県", "山形県", "福島県", "茨城県", "栃木県", "群馬県",
+            "埼玉県", "千葉県", "東京都", "神奈川県", "新潟県", "富山県", "石川県", "福井県", "山梨県", "長野県",
+            "岐阜県", "静岡県", "愛知県", "三重県", "滋賀県", "京都府", "大阪府", "兵庫県", "奈良県", "和歌山県",
+            "鳥取県", "島根県", "岡山県", "広島県", "山口県", "徳島県", "香川県", "愛媛県", "高知県", "福岡県",
+            "佐賀県", "長崎県", "熊本県", "大分県", "宮崎県", "鹿児島県", "沖縄県");
+
+    private static final Pattern OPTION = Pattern.compile("<option value=\"(\\d*)\"( selected=\"selected\")?>([^<]*)</option>");
+
+    @Test
+    void optionsMatchPreviousInputPage() throws IOException {
+        PrefectureCatalog catalog = new PrefectureCatalog(readPrefectures());
+
+        List<String> labels = new ArrayList<>();
+        Matcher matcher = OPTION.matcher(catalog.getOptions(""));
+        while (matcher.find()) {
+            assertThat(matcher.group(2)).isNull();
+            if (!matcher.group(1).isEmpty()) {
+                assertThat(matcher.group(1)).isEqualTo(String.valueOf(labels.size() + 1));
+                labels.add(matcher.group(3));
+            }
+        }
+        assertThat(labels).isEqualTo(EXPECTED_LABELS);
+    }
+
+    @Test
+    void selectedPrefectureIsMarked() throws IOException {
+        PrefectureCatalog catalog = new PrefectureCatalog(readPrefectures());
+
+        assertThat(catalog.getOptions("13")).contains("<option value=\"13\" selected=\"selected\">東京都</option>");
+        assertThat(catalog.getOptions("01")).isEqualTo(catalog.getOptions("1"));
+    }
+
+    @Test
+    void labelDoesNotRepeatSuffix() {
+        assertThat(PrefectureCatalog.label("東京都")).isEqualTo("東京都");
+        assertThat(PrefectureCatalog.label("大阪府")).isEqualTo("大阪府");
+        assertThat(PrefectureCatalog.label("青森県")).isEqualTo("青森県");
+    }
+
+    /**
+     * 初期データの都道府県のCSVを読み込む。
+     */
+    private static List<Prefecture> readPrefectures() throws IOException {
+        List<Prefecture> prefectures = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                PrefectureCatalogTest.class.getResourceAsStream("/data/PREFECTURE.csv"), StandardCharsets.UTF_8))) {
+            // 1行目は見出し
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                Prefecture prefecture = new Prefecture();
+                prefecture.setPrefectureId(columns[0]);
+                prefecture.setPrefectureName(columns[1]);
+                prefectures.add(prefecture);
+            }
+        }
+        return prefectures;
+    }
+}
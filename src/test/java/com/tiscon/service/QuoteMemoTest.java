@@ -0,0 +1,70 @@
+package com.tiscon.service;
+
+import com.tiscon.dto.PriceBreakdown;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link QuoteMemo} のテスト。参照データのスナップショットを差し替えた後も、古いスナップショットでの計算が
+ * 新しいスナップショットの結果を破棄しないことを確かめる。
+ */
+class QuoteMemoTest {
+
+    private static final long KEY = 1;
+
+    private final QuoteMemo memo = new QuoteMemo(100, new SimpleMeterRegistry());
+
+    /** 見積もりを計算した回数 */
+    private final AtomicInteger calculations = new AtomicInteger();
+
+    /** スナップショットのバージョンを料金とする計算 */
+    private final Function<PricingSnapshot, PriceBreakdown> calculator = current -> {
+        calculations.incrementAndGet();
+        return PriceBreakdown.ofMilliYen(0, 0, current.getVersion());
+    };
+
+    private static PricingSnapshot snapshot(long version) {
+        return new PricingSnapshot(Collections.emptyList(), null).withVersion(version);
+    }
+
+    @Test
+    void resultIsReusedForSameSnapshot() {
+        PricingSnapshot first = snapshot(1);
+
+        assertThat(memo.get(first, KEY, calculator).getPrice()).isEqualTo(1);
+        assertThat(memo.get(first, KEY, calculator).getPrice()).isEqualTo(1);
+        assertThat(calculations).hasValue(1);
+    }
+
+    @Test
+    void newerSnapshotReplacesResults() {
+        memo.get(snapshot(1), KEY, calculator);
+        PricingSnapshot second = snapshot(2);
+
+        assertThat(memo.get(second, KEY, calculator).getPrice()).isEqualTo(2);
+        assertThat(memo.get(second, KEY, calculator).getPrice()).isEqualTo(2);
+        assertThat(calculations).hasValue(2);
+    }
+
+    @Test
+    void olderSnapshotIsCalculatedWithoutDiscardingNewerResults() {
+        PricingSnapshot first = snapshot(1);
+        PricingSnapshot second = snapshot(2);
+        memo.get(second, KEY, calculator);
+
+        // 差し替え前に参照データを取得した要求は、その参照データで計算する
+        assertThat(memo.get(first, KEY, calculator).getPrice()).isEqualTo(1);
+        assertThat(memo.get(first, KEY, calculator).getPrice()).isEqualTo(1);
+        assertThat(calculations).hasValue(3);
+
+        // 新しいスナップショットの結果は破棄されていない
+        assertThat(memo.get(second, KEY, calculator).getPrice()).isEqualTo(2);
+        assertThat(calculations).hasValue(3);
+    }
+}
@@ -0,0 +1,259 @@
+package com.tiscon.validator;
+
+import com.tiscon.form.UserOrderForm;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * {@link UserOrderFormValidator} のテスト。
+ * 同じ入力に対して、Bean Validationのアノテーションで精査していたときと同じエラー(項目・コード・メッセージ)になることを確かめる。
+ */
+class UserOrderFormValidatorTest {
+
+    private static LocalValidatorFactoryBean beanValidator;
+
+    private final UserOrderFormValidator validator = new UserOrderFormValidator();
+
+    @BeforeAll
+    static void setUpBeanValidator() {
+        beanValidator = new LocalValidatorFactoryBean();
+        beanValidator.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void closeBeanValidator() {
+        beanValidator.close();
+    }
+
+    static Stream<Arguments> inputs() {
+        return Stream.of(
+                arguments("正しい入力", change(form -> {
+                })),
+                arguments("すべて未入力", (Consumer<UserOrderForm>) UserOrderFormValidatorTest::clear),
+                arguments("すべて空文字", change(form -> fill(form, ""))),
+                arguments("すべて空白", change(form -> fill(form, " \t　"))),
+                arguments("氏名が空白", change(form -> form.setCustomerName("  "))),
+                arguments("電話番号に数字以外", change(form -> form.setTel("03-1234-5678"))),
+                arguments("電話番号が全角数字", change(form -> form.setTel("０３１２３４５６７８"))),
+                arguments("電話番号が空白", change(form -> form.setTel(" "))),
+                arguments("電話番号が空白と数字", change(form -> form.setTel(" 0312345678"))),
+                arguments("段ボール数に負の数", change(form -> form.setBox("-1"))),
+                arguments("ベッド数に小数", change(form -> form.setBed("1.5"))),
+                arguments("自転車数が空文字", change(form -> form.setBicycle(""))),
+                arguments("洗濯機数に英字", change(form -> form.setWashingMachine("one"))),
+                arguments("郵便番号が6桁", change(form -> form.setOldPostalCode("123-456"))),
+                arguments("郵便番号に英字", change(form -> form.setNewPostalCode("1234567x"))),
+                arguments("郵便番号のハイフンの位置が不正", change(form -> form.setOldPostalCode("1234-567"))),
+                arguments("郵便番号が全角数字", change(form -> form.setNewPostalCode("１２３４５６７"))),
+                arguments("郵便番号が空文字", change(form -> form.setOldPostalCode(""))),
+                arguments("郵便番号がハイフンなし", change(form -> form.setNewPostalCode("5300001"))),
+                arguments("うるう年でない年の2月29日", change(form -> form.setMovingDate("2021-02-29"))),
+                arguments("うるう年の2月29日", change(form -> form.setMovingDate("2020-02-29"))),
+                arguments("存在しない日", change(form -> form.setMovingDate("2021-04-31"))),
+                arguments("月が13", change(form -> form.setMovingDate("2021-13-01"))),
+                arguments("スラッシュ区切りの日付", change(form -> form.setMovingDate("2021/03/10"))),
+                arguments("ゼロ埋めしない日付", change(form -> form.setMovingDate("2021-3-10"))),
+                arguments("引越し日が空白", change(form -> form.setMovingDate(" "))),
+                arguments("メールアドレスに@がない", change(form -> form.setEmail("taro.example.com"))),
+                arguments("メールアドレスのドメインがない", change(form -> form.setEmail("taro@"))),
+                arguments("メールアドレスのローカル部がない", change(form -> form.setEmail("@example.com"))),
+                arguments("メールアドレスに連続したドット", change(form -> form.setEmail("taro..yamada@example.com"))),
+                arguments("メールアドレスのドメインがハイフンで始まる", change(form -> form.setEmail("taro@-example.com"))),
+                arguments("メールアドレスのドメインがドットで終わる", change(form -> form.setEmail("taro@example.com."))),
+                arguments("メールアドレスに空白", change(form -> form.setEmail("taro yamada@example.com"))),
+                arguments("メールアドレスが空白", change(form -> form.setEmail(" "))),
+                arguments("メールアドレスのドメインがIPアドレス", change(form -> form.setEmail("taro@[192.168.0.1]"))),
+                arguments("メールアドレスのローカル部が65文字",
+                        change(form -> form.setEmail("a".repeat(65) + "@example.com"))),
+                arguments("メールアドレスのドメインが日本語", change(form -> form.setEmail("taro@例え.jp"))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("inputs")
+    void sameErrorsAsBeanValidation(String description, Consumer<UserOrderForm> input) {
+        AnnotatedUserOrderForm form = new AnnotatedUserOrderForm();
+        input.accept(form);
+
+        Errors expected = new BeanPropertyBindingResult(form, "userOrderForm");
+        beanValidator.validate(form, expected);
+        Errors actual = new BeanPropertyBindingResult(form, "userOrderForm");
+        validator.validate(form, actual);
+
+        assertThat(describe(actual)).isEqualTo(describe(expected));
+    }
+
+    /**
+     * 正しい入力に変更を加える。
+     */
+    private static Consumer<UserOrderForm> change(Consumer<UserOrderForm> change) {
+        return form -> {
+            form.setCustomerName("引越 太郎");
+            form.setTel("0312345678");
+            form.setEmail("taro@example.com");
+            form.setOldPostalCode("100-0001");
+            form.setOldPrefectureId("13");
+            form.setOldAddress("千代田区千代田1-1");
+            form.setNewPostalCode("530-0001");
+            form.setNewPrefectureId("27");
+            form.setNewAddress("大阪市北区梅田1-1");
+            form.setBox("10");
+            form.setBed("1");
+            form.setBicycle("0");
+            form.setWashingMachine("1");
+            form.setMovingDate("2021-03-10");
+            change.accept(form);
+        };
+    }
+
+    private static void clear(UserOrderForm form) {
+        fill(form, null);
+    }
+
+    private static void fill(UserOrderForm form, String value) {
+        form.setCustomerName(value);
+        form.setTel(value);
+        form.setEmail(value);
+        form.setOldPostalCode(value);
+        form.setOldPrefectureId(value);
+        form.setOldAddress(value);
+        form.setNewPostalCode(value);
+        form.setNewPrefectureId(value);
+        form.setNewAddress(value);
+        form.setBox(value);
+        form.setBed(value);
+        form.setBicycle(value);
+        form.setWashingMachine(value);
+        form.setMovingDate(value);
+    }
+
+    /**
+     * エラーを項目・コード・メッセージ・メッセージコードの文字列にして並べる。Bean Validationはエラーの順番を保証しないため並べ替える。
+     */
+    private static List<String> describe(Errors errors) {
+        assertThat(errors.getGlobalErrors()).isEmpty();
+        return errors.getFieldErrors().stream()
+                .map(UserOrderFormValidatorTest::describe)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static String describe(FieldError error) {
+        return error.getField() + " " + error.getCode() + " " + error.getDefaultMessage() + " "
+                + Arrays.toString(error.getCodes());
+    }
+
+    /**
+     * {@link UserOrderFormValidator}を導入する前の、Bean Validationのアノテーションで精査していた入力フォーム。
+     */
+    static class AnnotatedUserOrderForm extends UserOrderForm {
+
+        @NotBlank
+        @Override
+        public String getCustomerName() {
+            return super.getCustomerName();
+        }
+
+        @NotBlank
+        @Numeric
+        @Override
+        public String getTel() {
+            return super.getTel();
+        }
+
+        @Email
+        @NotBlank
+        @Override
+        public String getEmail() {
+            return super.getEmail();
+        }
+
+        @PostalCode
+        @Override
+        public String getOldPostalCode() {
+            return super.getOldPostalCode();
+        }
+
+        @NotBlank
+        @Override
+        public String getOldPrefectureId() {
+            return super.getOldPrefectureId();
+        }
+
+        @NotBlank
+        @Override
+        public String getOldAddress() {
+            return super.getOldAddress();
+        }
+
+        @PostalCode
+        @Override
+        public String getNewPostalCode() {
+            return super.getNewPostalCode();
+        }
+
+        @NotBlank
+        @Override
+        public String getNewPrefectureId() {
+            return super.getNewPrefectureId();
+        }
+
+        @NotBlank
+        @Override
+        public String getNewAddress() {
+            return super.getNewAddress();
+        }
+
+        @Numeric
+        @NotBlank
+        @Override
+        public String getBox() {
+            return super.getBox();
+        }
+
+        @Numeric
+        @NotBlank
+        @Override
+        public String getBed() {
+            return super.getBed();
+        }
+
+        @Numeric
+        @NotBlank
+        @Override
+        public String getBicycle() {
+            return super.getBicycle();
+        }
+
+        @Numeric
+        @NotBlank
+        @Override
+        public String getWashingMachine() {
+            return super.getWashingMachine();
+        }
+
+        @NotBlank
+        @IsoDate
+        @Override
+        public String getMovingDate() {
+            return super.getMovingDate();
+        }
+    }
+}